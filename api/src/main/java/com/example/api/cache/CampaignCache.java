@@ -0,0 +1,68 @@
+package com.example.api.cache;
+
+import com.example.api.domain.Campaign;
+import com.example.api.domain.CampaignNotFoundException;
+import com.example.api.repository.CampaignRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class CampaignCache { // 응모 요청마다 MySQL에서 캠페인을 조회하지 않도록 캠페인 정보를 JVM 로컬 메모리에 보관
+
+    private final CampaignRepository campaignRepository;
+
+    private final Map<Long, Campaign> campaigns = new ConcurrentHashMap<>();
+
+    private final Cache<Long, Boolean> missing; // 존재하지 않는 것으로 확인된 캠페인 id (크기 제한)
+
+    public CampaignCache(CampaignRepository campaignRepository,
+                         @Value("${coupon.default-stock:100}") Long defaultStock,
+                         @Value("${coupon.campaign-cache.missing-ttl-ms:1000}") long missingTtlMillis,
+                         @Value("${coupon.campaign-cache.missing-max-size:100000}") long missingMaxSize) {
+        this.campaignRepository = campaignRepository;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(missingMaxSize)
+                .expireAfterWrite(Duration.ofMillis(missingTtlMillis)) // 곧 생성될 캠페인도 잠시 후에는 조회된다
+                .build();
+        this.campaigns.put(Campaign.DEFAULT_ID, Campaign.defaultCampaign(defaultStock));
+    }
+
+    public Campaign get(Long campaignId) { // 존재하지 않는 캠페인은 CampaignNotFoundException
+        Campaign campaign = campaigns.get(campaignId);
+
+        if (campaign != null) {
+            return campaign;
+        }
+
+        if (missing.getIfPresent(campaignId) != null) { // 임의의 id로 요청해도 missing-ttl 동안은 MySQL까지 가지 않는다
+            throw new CampaignNotFoundException(campaignId);
+        }
+
+        campaign = campaigns.computeIfAbsent(campaignId, id -> campaignRepository.findById(id).orElse(null));
+
+        if (campaign == null) {
+            missing.put(campaignId, Boolean.TRUE);
+            throw new CampaignNotFoundException(campaignId);
+        }
+
+        return campaign;
+    }
+
+    public void put(Campaign campaign) { // 시작 전에 MySQL의 최신 캠페인 정보로 미리 채운다 (CampaignLifecycleService), 워밍업 도중에만 워밍업 캠페인을 등록 (WarmUpRunner)
+        campaigns.put(campaign.getId(), campaign);
+        missing.invalidate(campaign.getId());
+    }
+
+    public void evict(Long campaignId) { // 캠페인 정보(재고, 시간)가 변경된 경우 다음 요청에서 다시 조회하도록 제거
+        if (!Campaign.DEFAULT_ID.equals(campaignId)) {
+            campaigns.remove(campaignId);
+        }
+    }
+
+}
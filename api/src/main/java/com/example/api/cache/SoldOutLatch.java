@@ -0,0 +1,98 @@
+package com.example.api.cache;
+
+import com.example.api.repository.ShardedStockRepository;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class SoldOutLatch { // 캠페인별 재고 소진 여부를 JVM 로컬 메모리에 기억해서 소진 이후의 요청은 Redis까지 가지 않고 바로 거절하기 위한 래치
+
+    public static final String CHANNEL = "coupon_sold_out"; // 다른 API 노드들에게 재고 소진/초기화를 알리는 Redis pub/sub 채널
+
+    public static final String SOLD_OUT_MESSAGE = "SOLD_OUT";
+
+    public static final String RESET_MESSAGE = "RESET";
+
+    public static final String CLEAR_MESSAGE = "CLEAR"; // 아카이브가 끝난 캠페인의 로컬 상태 정리 - CampaignLifecycleService가 받는다
+
+    public static final String DELIMITER = ":"; // 메세지 형식 - SOLD_OUT:{campaignId}, RESET:{campaignId}, CLEAR:{campaignId}
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final ShardedStockRepository shardedStockRepository;
+
+    private final Set<Long> soldOutCampaigns = ConcurrentHashMap.newKeySet();
+
+    private final Set<Long> pendingResets = ConcurrentHashMap.newKeySet(); // 아직 다른 노드에 전파하지 않은 RESET
+
+    public SoldOutLatch(RedisTemplate<String, String> redisTemplate, ShardedStockRepository shardedStockRepository) {
+        this.redisTemplate = redisTemplate;
+        this.shardedStockRepository = shardedStockRepository;
+    }
+
+    public boolean isSoldOut(Long campaignId) {
+        return soldOutCampaigns.contains(campaignId);
+    }
+
+    public void markSoldOut(Long campaignId) { // 이 노드에서 재고 소진을 처음 확인한 경우 로컬 래치를 닫고 다른 노드에게도 전파 (PUBLISH coupon_sold_out SOLD_OUT:{campaignId})
+        pendingResets.remove(campaignId); // 전파하기 전에 다시 소진된 경우 RESET은 보내지 않는다
+
+        if (!soldOutCampaigns.add(campaignId)) {
+            return;
+        }
+
+        redisTemplate.convertAndSend(CHANNEL, SOLD_OUT_MESSAGE + DELIMITER + campaignId);
+    }
+
+    /**
+     * 재고가 다시 채워질 때 모든 노드의 래치를 다시 연다.
+     * 이 노드의 래치는 바로 열고, 다른 노드에 보내는 RESET은 캠페인별로 모아서 reset-coalesce-ms마다 한번만 전파한다.
+     * (브로커 장애로 송신 실패가 몰려도 RESET이 폭주해서 모든 노드의 트래픽이 Redis로 돌아가지 않도록)
+     * 래치와 함께 소진된 샤드 기록도 비운다. 래치만 열면 다음 응모가 기억하던 샤드를 모두 건너뛰고 SOLD_OUT으로 래치를 다시 닫는다.
+     */
+    public void reset(Long campaignId) {
+        soldOutCampaigns.remove(campaignId);
+        shardedStockRepository.reset(campaignId);
+        pendingResets.add(campaignId);
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.sold-out.reset-coalesce-ms:100}")
+    public void publishResets() {
+        for (Long campaignId : pendingResets) {
+            pendingResets.remove(campaignId);
+            redisTemplate.convertAndSend(CHANNEL, RESET_MESSAGE + DELIMITER + campaignId);
+        }
+    }
+
+    public void publishClear(Long campaignId) { // 같은 채널로 모든 노드에 캠페인 정리를 알린다 (PUBLISH coupon_sold_out CLEAR:{campaignId})
+        redisTemplate.convertAndSend(CHANNEL, CLEAR_MESSAGE + DELIMITER + campaignId);
+    }
+
+    public void forget(Long campaignId) { // 이 노드의 래치만 지운다 - 시작 전/종료 후에는 모든 노드가 각자 정리하므로 전파하지 않는다
+        soldOutCampaigns.remove(campaignId);
+        pendingResets.remove(campaignId);
+    }
+
+    public void onMessage(String message) { // 다른 노드에서 전파된 메세지를 로컬 래치에 반영 (PUBLISH는 다시 전파하지 않음)
+        int index = message.indexOf(DELIMITER);
+
+        if (index < 0) {
+            return;
+        }
+
+        String type = message.substring(0, index);
+        Long campaignId = Long.valueOf(message.substring(index + 1));
+
+        if (SOLD_OUT_MESSAGE.equals(type)) {
+            soldOutCampaigns.add(campaignId);
+        } else if (RESET_MESSAGE.equals(type)) {
+            soldOutCampaigns.remove(campaignId);
+            shardedStockRepository.reset(campaignId); // 다른 노드에서 되돌린 재고를 이 노드도 다시 Redis에 묻도록
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.example.api.config;
+
+import com.example.api.domain.CouponCreatedEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class CouponCreatedEventSerializer implements Serializer<CouponCreatedEvent> { // CouponCreatedEvent -> 25 bytes 고정 길이 바이너리
+
+    @Override
+    public byte[] serialize(String topic, CouponCreatedEvent event) {
+        return event == null ? null : event.encode();
+    }
+
+}
@@ -1,13 +1,15 @@
 package com.example.api.config;
 
+import com.example.api.domain.CouponCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
-import org.apache.kafka.common.serialization.LongDeserializer;
-import org.apache.kafka.common.serialization.LongSerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 
 import java.util.HashMap;
@@ -16,20 +18,66 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    private final String bootstrapServers;
+
+    private final String acks;
+
+    private final boolean enableIdempotence;
+
+    private final int lingerMs;
+
+    private final int batchSize;
+
+    private final String compressionType;
+
+    private final long maxBlockMs;
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaProducerConfig(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+                               @Value("${coupon.producer.acks:all}") String acks,
+                               @Value("${coupon.producer.enable-idempotence:true}") boolean enableIdempotence,
+                               @Value("${coupon.producer.linger-ms:5}") int lingerMs,
+                               @Value("${coupon.producer.batch-size:65536}") int batchSize,
+                               @Value("${coupon.producer.compression-type:lz4}") String compressionType,
+                               @Value("${coupon.producer.max-block-ms:1000}") long maxBlockMs,
+                               MeterRegistry meterRegistry) {
+        this.bootstrapServers = bootstrapServers;
+        this.acks = acks;
+        this.enableIdempotence = enableIdempotence;
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.maxBlockMs = maxBlockMs;
+        this.meterRegistry = meterRegistry;
+    }
+
     @Bean
-    public ProducerFactory<String, Long> producerFactory() {
+    public ProducerFactory<String, CouponCreatedEvent> producerFactory() {
         Map<String, Object> config = new HashMap<>();
 
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092"); // 서버 정보 추가
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers); // 서버 정보 추가
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, LongSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CouponCreatedEventSerializer.class); // 버전이 있는 고정 길이 바이너리 이벤트
+        config.put(ProducerConfig.ACKS_CONFIG, acks); // 모든 ISR 복제가 끝난 이후에 성공으로 응답
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence); // 재전송되어도 브로커에 중복으로 저장되지 않음
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+
+        DefaultKafkaProducerFactory<String, CouponCreatedEvent> factory = new DefaultKafkaProducerFactory<>(config);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry)); // kafka.producer.* 클라이언트 지표 (송신률, 요청 지연시간, 버퍼 사용량)
 
-        return new DefaultKafkaProducerFactory<>(config);
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, Long> kafkaTemplate() { // 카프카 Topic에 데이터를 전송할때 필요한 카프카 템플릿 만들기
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate() { // 카프카 Topic에 데이터를 전송할때 필요한 카프카 템플릿 만들기
+        KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        kafkaTemplate.setObservationEnabled(true); // 송신 지연시간/실패 지표(spring.kafka.template)를 남기고 현재 trace를 record 헤더(traceparent)로 전달
+
+        return kafkaTemplate;
     }
 
 }
@@ -0,0 +1,32 @@
+package com.example.api.config;
+
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.service.CampaignLifecycleService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class RedisConfig {
+
+    @Bean // 재고 소진/초기화 메세지를 구독해서 모든 API 노드의 SoldOutLatch를 동시에 전환하기 위한 리스너 컨테이너 (SUBSCRIBE coupon_sold_out)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory, SoldOutLatch soldOutLatch, CampaignLifecycleService campaignLifecycleService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> {
+                    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+                    soldOutLatch.onMessage(body);
+                    campaignLifecycleService.onMessage(body); // 아카이브가 끝난 캠페인의 로컬 상태 정리 (CLEAR:{campaignId})
+                },
+                new ChannelTopic(SoldOutLatch.CHANNEL)
+        );
+
+        return container;
+    }
+
+}
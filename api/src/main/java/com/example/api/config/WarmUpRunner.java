@@ -0,0 +1,190 @@
+package com.example.api.config;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.domain.Campaign;
+import com.example.api.producer.CouponCreateProducer;
+import com.example.api.repository.CampaignKeys;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 이벤트 시작 전에 미리 띄운 인스턴스가 첫 요청부터 최대 처리량을 낼 수 있도록 트래픽을 받기 전에 실행하는 워밍업.
+ * Hikari 커넥션 풀과 Lettuce 연결을 열고, Lua 스크립트를 SCRIPT LOAD로 미리 적재하고(첫 EVALSHA의 NOSCRIPT -> EVAL 방지),
+ * coupon_create의 메타데이터를 가져온 뒤 워밍업 캠페인에 합성 응모 요청을 보내 Tomcat -> 컨트롤러 -> Lua 스크립트 경로를 JIT 컴파일시킨다.
+ *
+ * ApplicationRunner가 모두 끝난 이후에 Spring Boot가 readiness를 ACCEPTING_TRAFFIC으로 바꾸므로
+ * /actuator/health/readiness는 워밍업이 끝날 때까지 OUT_OF_SERVICE를 응답하고 로드밸런서가 요청을 보내지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "coupon.warm-up.enabled", havingValue = "true")
+public class WarmUpRunner implements ApplicationRunner {
+
+    private final ApplicationContext applicationContext;
+
+    private final DataSource dataSource;
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final CouponCreateProducer couponCreateProducer;
+
+    private final CampaignCache campaignCache;
+
+    private final int requests;
+
+    private final int concurrency;
+
+    private final Logger logger = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    public WarmUpRunner(ApplicationContext applicationContext,
+                        DataSource dataSource,
+                        RedisTemplate<String, String> redisTemplate,
+                        CouponCreateProducer couponCreateProducer,
+                        CampaignCache campaignCache,
+                        @Value("${coupon.warm-up.requests:20000}") int requests,
+                        @Value("${coupon.warm-up.concurrency:16}") int concurrency) {
+        this.applicationContext = applicationContext;
+        this.dataSource = dataSource;
+        this.redisTemplate = redisTemplate;
+        this.couponCreateProducer = couponCreateProducer;
+        this.campaignCache = campaignCache;
+        this.requests = requests;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC); // 워밍업 도중에는 트래픽을 받지 않는다
+
+        openConnectionPool();
+        loadScripts();
+        fetchTopicMetadata();
+        sendSyntheticApplies();
+
+        logger.info("warmed up in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms, accepting traffic");
+    }
+
+    private void openConnectionPool() throws SQLException { // 이벤트 도중 커넥션을 새로 맺지 않도록 풀의 최대 크기만큼 동시에 연결
+        int size = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 1;
+        List<Connection> connections = new ArrayList<>(size);
+
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private void loadScripts() throws IOException { // Lettuce의 공유 연결을 열고 Lua 스크립트를 미리 적재 (클러스터면 모든 마스터 노드에 적재)
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath:scripts/*.lua");
+
+        for (Resource script : scripts) {
+            byte[] body = script.getContentAsByteArray();
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands().scriptLoad(body));
+        }
+    }
+
+    private void fetchTopicMetadata() { // 프로듀서는 첫 send에서 만들어지고 메타데이터를 가져오므로 미리 가져온다
+        try {
+            couponCreateProducer.partitions();
+        } catch (RuntimeException e) { // 브로커 장애 중에도 outbox에 기록하며 응모를 받을 수 있으므로 시작을 막지 않는다
+            logger.warn("failed to fetch coupon_create metadata during warm-up", e);
+        }
+    }
+
+    /**
+     * 워밍업 캠페인에 유저마다 두번씩 응모해서 발급(ISSUED)과 중복 응모(DUPLICATE) 경로를 모두 실행한다.
+     * 대기열 모드에서도 워밍업 캠페인의 응모는 대기열을 거치지 않고 apply4로 바로 처리된다. (ApplyController)
+     * 워밍업 캠페인의 쿠폰은 송신되지 않으며, 워밍업 캠페인은 이 동안에만 CampaignCache에 등록되고 끝나면 Redis에 남은 key와 함께 지운다.
+     * (워밍업 이후에 /campaigns/-1/apply로 들어온 요청은 존재하지 않는 캠페인으로 404 응답)
+     */
+    private void sendSyntheticApplies() throws Exception {
+        if (!(applicationContext instanceof WebServerApplicationContext webServerApplicationContext) || requests <= 0) {
+            return;
+        }
+
+        String uri = "http://localhost:" + webServerApplicationContext.getWebServer().getPort() + "/campaigns/" + Campaign.WARM_UP_ID + "/apply?userId=";
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(); // Tomcat은 h2c 업그레이드를 지원하지 않으므로 keep-alive 연결을 재사용
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        campaignCache.put(Campaign.warmUpCampaign());
+
+        try {
+            List<Future<?>> workers = new ArrayList<>(concurrency);
+
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long n;
+
+                    while ((n = sequence.getAndIncrement()) < requests) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(uri + n / 2))
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build();
+
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) { // 429는 AdmissionLimiter까지 워밍업된 것
+                                failures.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            campaignCache.evict(Campaign.WARM_UP_ID);
+            redisTemplate.delete(List.of(
+                    CampaignKeys.appliedUser(Campaign.WARM_UP_ID),
+                    CampaignKeys.appliedUserBitmap(Campaign.WARM_UP_ID),
+                    CampaignKeys.couponCount(Campaign.WARM_UP_ID)
+            ));
+        }
+
+        if (failures.get() > 0) {
+            logger.warn(failures.get() + " of " + requests + " warm-up applies were not answered with 200");
+        }
+    }
+
+}
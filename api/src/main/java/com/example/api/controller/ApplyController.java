@@ -0,0 +1,96 @@
+package com.example.api.controller;
+
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.domain.CampaignNotFoundException;
+import com.example.api.domain.CouponIssueTimeoutException;
+import com.example.api.metrics.ApplyMetrics;
+import com.example.api.service.AdmissionLimiter;
+import com.example.api.service.ApplyService;
+import com.example.api.service.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ApplyController {
+
+    private final ApplyService applyService;
+
+    private final AdmissionLimiter admissionLimiter;
+
+    private final SoldOutLatch soldOutLatch;
+
+    private final ApplyMetrics applyMetrics;
+
+    private final WaitingRoomService waitingRoomService;
+
+    private final boolean waitingRoomEnabled;
+
+    public ApplyController(ApplyService applyService, AdmissionLimiter admissionLimiter, SoldOutLatch soldOutLatch, ApplyMetrics applyMetrics, WaitingRoomService waitingRoomService, @Value("${coupon.waiting-room.enabled:false}") boolean waitingRoomEnabled) {
+        this.applyService = applyService;
+        this.admissionLimiter = admissionLimiter;
+        this.soldOutLatch = soldOutLatch;
+        this.applyMetrics = applyMetrics;
+        this.waitingRoomService = waitingRoomService;
+        this.waitingRoomEnabled = waitingRoomEnabled;
+    }
+
+    @PostMapping("/campaigns/{campaignId}/apply") // POST /campaigns/1/apply?userId=10
+    public ResponseEntity<?> apply(@PathVariable Long campaignId, @RequestParam Long userId) {
+        if (waitingRoomEnabled && !Campaign.WARM_UP_ID.equals(campaignId)) { // 대기열 모드에서는 바로 발급하지 않고 대기열에 넣은 뒤 순위를 응답 (202 Accepted) - 워밍업 응모는 발급 경로를 JIT 컴파일시키도록 바로 처리
+            return ResponseEntity.accepted().body(waitingRoomService.enter(campaignId, userId));
+        }
+
+        long start = System.nanoTime();
+
+        if (soldOutLatch.isSoldOut(campaignId)) { // 재고 소진 이후의 요청은 입장 제한과 관계없이 바로 응답
+            applyMetrics.record(ApplyResult.SOLD_OUT, start);
+            return ResponseEntity.ok(ApplyResult.SOLD_OUT);
+        }
+
+        if (!admissionLimiter.tryAcquire()) { // 처리 중인 요청이 가득 찬 경우 대기열에 쌓지 않고 429로 바로 거절
+            applyMetrics.recordRejected(start);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+
+        try {
+            ApplyResult result = applyService.apply4(campaignId, userId);
+            applyMetrics.record(result, start);
+
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            applyMetrics.recordError(start);
+            throw e;
+        } finally {
+            admissionLimiter.release();
+        }
+    }
+
+    @ExceptionHandler(CampaignNotFoundException.class)
+    public ResponseEntity<Void> handleCampaignNotFound() {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(CouponIssueTimeoutException.class) // 병합된 발급이 늦어진 경우 - 발급되지 않았으므로 다시 시도할 수 있다
+    public ResponseEntity<Void> handleIssueTimeout() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class) // BITMAP 캠페인의 범위를 벗어난 userId 등
+    public ResponseEntity<Void> handleIllegalArgument() {
+        return ResponseEntity.badRequest().build();
+    }
+
+}
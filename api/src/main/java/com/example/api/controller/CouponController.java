@@ -0,0 +1,42 @@
+package com.example.api.controller;
+
+import com.example.api.domain.CampaignNotFoundException;
+import com.example.api.service.CouponLookupService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class CouponController {
+
+    private final CouponLookupService couponLookupService;
+
+    public CouponController(CouponLookupService couponLookupService) {
+        this.couponLookupService = couponLookupService;
+    }
+
+    @GetMapping("/campaigns/{campaignId}/coupons/{userId}") // 유저가 캠페인의 쿠폰을 가지고 있으면 200, 없으면 404
+    public ResponseEntity<Void> hasCoupon(@PathVariable Long campaignId, @PathVariable Long userId) {
+        return couponLookupService.hasCoupon(campaignId, userId) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/users/{userId}/coupons") // 유저가 가진 쿠폰의 캠페인 id 목록 (발급 순서)
+    public List<Long> findCampaignIds(@PathVariable Long userId) {
+        return couponLookupService.findCampaignIds(userId);
+    }
+
+    @ExceptionHandler(CampaignNotFoundException.class)
+    public ResponseEntity<Void> handleCampaignNotFound() {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class) // BITMAP 캠페인의 범위를 벗어난 userId 등
+    public ResponseEntity<Void> handleIllegalArgument() {
+        return ResponseEntity.badRequest().build();
+    }
+
+}
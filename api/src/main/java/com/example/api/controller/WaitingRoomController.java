@@ -0,0 +1,43 @@
+package com.example.api.controller;
+
+import com.example.api.domain.CampaignNotFoundException;
+import com.example.api.domain.WaitingTicket;
+import com.example.api.service.WaitingRoomService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class WaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    public WaitingRoomController(WaitingRoomService waitingRoomService) {
+        this.waitingRoomService = waitingRoomService;
+    }
+
+    @PostMapping("/campaigns/{campaignId}/waiting-room") // POST /campaigns/1/waiting-room?userId=10 - 대기열에 들어가고 순위를 바로 응답 (재시도해도 순위는 그대로)
+    public ResponseEntity<WaitingTicket> enter(@PathVariable Long campaignId, @RequestParam Long userId) {
+        return ResponseEntity.accepted().body(waitingRoomService.enter(campaignId, userId));
+    }
+
+    @GetMapping("/campaigns/{campaignId}/waiting-room/{userId}") // 대기 순위 또는 응모 결과 - 대기열에 없는 유저는 404
+    public ResponseEntity<WaitingTicket> status(@PathVariable Long campaignId, @PathVariable Long userId) {
+        return ResponseEntity.of(waitingRoomService.status(campaignId, userId));
+    }
+
+    @ExceptionHandler(CampaignNotFoundException.class)
+    public ResponseEntity<Void> handleCampaignNotFound() {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class) // BITMAP 캠페인의 범위를 벗어난 userId 등
+    public ResponseEntity<Void> handleIllegalArgument() {
+        return ResponseEntity.badRequest().build();
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.example.api.domain;
+
+public enum AppliedUserStore { // 캠페인별로 응모한 유저를 기록하는 Redis 자료구조
+
+    SET, // SADD applied_user:{campaignId} userId - 유저당 수십 바이트, userId 형식 제한 없음
+    BITMAP // SETBIT applied_user_bitmap:{campaignId} userId 1 - 유저당 1비트 (userId는 0 ~ 2^32-1 범위의 숫자여야 한다)
+
+}
@@ -0,0 +1,28 @@
+package com.example.api.domain;
+
+public enum ApplyResult { // 쿠폰 응모 결과
+
+    ISSUED(1L), // 쿠폰 발급 성공
+    DUPLICATE(0L), // 이미 응모한 유저
+    SOLD_OUT(2L), // 쿠폰 재고 소진
+    NOT_STARTED(3L), // 시작 전 응모 - Redis까지 가지 않고 로컬에서 거절
+    ENDED(4L), // 종료 이후 응모
+    REJECTED(5L); // 대기열에서 입장했지만 다시 시도해도 처리할 수 없는 응모 (삭제된 캠페인 등)
+
+    private final long code; // Lua 스크립트가 반환하는 값 (NOT_STARTED, ENDED, REJECTED는 스크립트가 반환하지 않는다)
+
+    ApplyResult(long code) {
+        this.code = code;
+    }
+
+    public static ApplyResult of(Long code) {
+        for (ApplyResult result : values()) {
+            if (code != null && result.code == code) {
+                return result;
+            }
+        }
+
+        throw new IllegalStateException("unknown apply result code : " + code); // 스크립트와 enum이 맞지 않는 경우 (요청의 문제가 아님)
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.example.api.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+
+@Entity
+public class Campaign { // 선착순 쿠폰 이벤트 - 캠페인마다 재고, 시작/종료 시간, Redis key, Kafka record key가 분리된다
+
+    public static final Long DEFAULT_ID = 0L; // campaignId 없이 호출되는 apply1 ~ apply4가 사용하는 기본 캠페인 (DB에 저장되지 않음)
+
+    public static final Long WARM_UP_ID = -1L; // 시작할 때 WarmUpRunner가 합성 응모 요청을 보내는 캠페인 (DB에 저장되지 않고 발급된 쿠폰도 송신하지 않음)
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long stock; // 발급 가능한 쿠폰의 최대 개수
+
+    private Integer stockShards; // 재고를 나눌 샤드 카운터의 개수 (1 이하면 coupon_count 하나만 사용)
+
+    @Enumerated(EnumType.STRING)
+    private AppliedUserStore appliedUserStore; // 중복 응모 확인에 사용할 자료구조 (기본값 SET)
+
+    private LocalDateTime startAt;
+
+    private LocalDateTime endAt;
+
+    private Long issuedCount; // 종료 이후 아카이브된 발급 쿠폰 수
+
+    private LocalDateTime archivedAt; // 발급 결과를 MySQL에 아카이브하고 Redis key를 정리한 시각 (null이면 진행 중)
+
+    public Campaign() {
+    }
+
+    public Campaign(Long stock, LocalDateTime startAt, LocalDateTime endAt) {
+        this(stock, 1, startAt, endAt);
+    }
+
+    public Campaign(Long stock, Integer stockShards, LocalDateTime startAt, LocalDateTime endAt) {
+        this(stock, stockShards, AppliedUserStore.SET, startAt, endAt);
+    }
+
+    public Campaign(Long stock, Integer stockShards, AppliedUserStore appliedUserStore, LocalDateTime startAt, LocalDateTime endAt) {
+        this.stock = stock;
+        this.stockShards = stockShards;
+        this.appliedUserStore = appliedUserStore;
+        this.startAt = startAt;
+        this.endAt = endAt;
+    }
+
+    public static Campaign defaultCampaign(Long stock) {
+        Campaign campaign = new Campaign(stock, null, null);
+        campaign.id = DEFAULT_ID;
+
+        return campaign;
+    }
+
+    public static Campaign warmUpCampaign() { // 재고가 소진되지 않도록 재고를 최대로 잡아서 소진 래치가 다른 노드로 전파되지 않게 한다
+        Campaign campaign = new Campaign(Long.MAX_VALUE, null, null);
+        campaign.id = WARM_UP_ID;
+
+        return campaign;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getStock() {
+        return stock;
+    }
+
+    public int getStockShards() {
+        return stockShards == null || stockShards < 1 ? 1 : stockShards;
+    }
+
+    public boolean isStockSharded() {
+        return getStockShards() > 1;
+    }
+
+    public int getHomeShard(Long userId) { // 유저의 중복 응모 확인과 첫 재고 획득을 담당하는 샤드
+        return (int) Math.floorMod(userId, (long) getStockShards());
+    }
+
+    public long getShardStock(int shard) { // 전체 재고를 샤드 개수로 나누고 나머지는 앞쪽 샤드에 하나씩 더 할당
+        int shards = getStockShards();
+
+        return stock / shards + (shard < stock % shards ? 1 : 0);
+    }
+
+    public AppliedUserStore getAppliedUserStore() {
+        return appliedUserStore == null ? AppliedUserStore.SET : appliedUserStore;
+    }
+
+    public LocalDateTime getStartAt() {
+        return startAt;
+    }
+
+    public LocalDateTime getEndAt() {
+        return endAt;
+    }
+
+    public Long getIssuedCount() {
+        return issuedCount;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public boolean isBeforeStart(LocalDateTime now) { // 시작/종료 시간이 없는 캠페인(기본, 워밍업)은 항상 진행 중
+        return startAt != null && now.isBefore(startAt);
+    }
+
+    public boolean isEnded(LocalDateTime now) {
+        return endAt != null && !now.isBefore(endAt);
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.example.api.domain;
+
+public class CampaignNotFoundException extends RuntimeException { // 존재하지 않는 캠페인 (컨트롤러에서 404로 응답)
+
+    private static final long serialVersionUID = 1L;
+
+    public CampaignNotFoundException(Long campaignId) {
+        super("campaign not found : " + campaignId);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.example.api.domain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * coupon_create 토픽으로 송신하는 쿠폰 발급 이벤트 (record value)
+ *
+ * 고정 길이 big-endian 바이너리 : [version 1][campaignId 8][userId 8][issuedAt 8] = 25 bytes (v1)
+ * 필드는 항상 뒤에만 추가하고 version을 올린다. 컨슈머는 알고 있는 앞부분만 읽으므로 새 버전의 이벤트도 그대로 처리할 수 있다.
+ * (campaignId, userId)가 멱등성 키(coupon 테이블의 unique key)이고, issuedAt은 Redis에서 발급된 시각(epoch millis)이다.
+ */
+public record CouponCreatedEvent(long campaignId, long userId, long issuedAt) {
+
+    public static final byte VERSION = 1;
+
+    public static final int SIZE = 25;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    public static CouponCreatedEvent issued(Long campaignId, Long userId) {
+        return new CouponCreatedEvent(campaignId, userId, System.currentTimeMillis());
+    }
+
+    public byte[] encode() {
+        byte[] data = new byte[SIZE];
+        data[0] = VERSION;
+        LONG.set(data, 1, campaignId);
+        LONG.set(data, 9, userId);
+        LONG.set(data, 17, issuedAt);
+
+        return data;
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.example.api.domain;
+
+public class CouponIssueTimeoutException extends RuntimeException { // 병합된 발급 요청이 제한 시간 안에 처리되지 않은 경우 (컨트롤러에서 503으로 응답)
+
+    private static final long serialVersionUID = 1L;
+
+    public CouponIssueTimeoutException(Long campaignId, Throwable cause) {
+        super("coupon issue of campaign " + campaignId + " timed out", cause);
+    }
+
+}
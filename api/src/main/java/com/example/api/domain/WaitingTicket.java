@@ -0,0 +1,24 @@
+package com.example.api.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 대기열 응모/상태 조회의 응답 - 대기 중이면 rank(1 = 다음에 입장, 0 = 입장해서 응모 처리 중), 입장해서 응모가 끝났으면 result만 채워진다.
+ * {"rank":1532}, {"rank":0} 또는 {"result":"ISSUED"}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WaitingTicket(Long rank, ApplyResult result) {
+
+    public static WaitingTicket waiting(long rank) {
+        return new WaitingTicket(rank, null);
+    }
+
+    public static WaitingTicket admitting() { // 대기열에서 꺼내졌지만 아직 응모 결과가 저장되지 않은 유저
+        return new WaitingTicket(0L, null);
+    }
+
+    public static WaitingTicket done(ApplyResult result) {
+        return new WaitingTicket(null, result);
+    }
+
+}
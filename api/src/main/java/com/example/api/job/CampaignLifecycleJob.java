@@ -0,0 +1,42 @@
+package com.example.api.job;
+
+import com.example.api.domain.Campaign;
+import com.example.api.repository.CampaignRepository;
+import com.example.api.service.CampaignLifecycleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@ConditionalOnProperty(name = "coupon.lifecycle.enabled", havingValue = "true")
+public class CampaignLifecycleJob { // tick마다 아카이브되지 않은 캠페인의 시작 전 준비 / 종료 후 아카이브를 수행하는 작업 (모든 api 노드에서 실행)
+
+    private final CampaignRepository campaignRepository;
+
+    private final CampaignLifecycleService campaignLifecycleService;
+
+    private final Logger logger = LoggerFactory.getLogger(CampaignLifecycleJob.class);
+
+    public CampaignLifecycleJob(CampaignRepository campaignRepository, CampaignLifecycleService campaignLifecycleService) {
+        this.campaignRepository = campaignRepository;
+        this.campaignLifecycleService = campaignLifecycleService;
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.lifecycle.tick-ms:1000}")
+    public void advance() {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Campaign campaign : campaignRepository.findByArchivedAtIsNull()) {
+            try {
+                campaignLifecycleService.advance(campaign, now);
+            } catch (RuntimeException e) { // 한 캠페인의 실패가 다른 캠페인의 준비/아카이브를 막지 않도록
+                logger.error("failed to advance lifecycle of campaign " + campaign.getId(), e);
+            }
+        }
+    }
+
+}
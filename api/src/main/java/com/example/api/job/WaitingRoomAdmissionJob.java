@@ -0,0 +1,37 @@
+package com.example.api.job;
+
+import com.example.api.repository.WaitingRoomRepository;
+import com.example.api.service.WaitingRoomService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "coupon.waiting-room.enabled", havingValue = "true")
+public class WaitingRoomAdmissionJob { // tick마다 대기열이 있는 캠페인마다 앞에서부터 admit-per-tick명씩 입장시키는 작업 (모든 api 노드에서 실행)
+
+    private final WaitingRoomRepository waitingRoomRepository;
+
+    private final WaitingRoomService waitingRoomService;
+
+    private final Logger logger = LoggerFactory.getLogger(WaitingRoomAdmissionJob.class);
+
+    public WaitingRoomAdmissionJob(WaitingRoomRepository waitingRoomRepository, WaitingRoomService waitingRoomService) {
+        this.waitingRoomRepository = waitingRoomRepository;
+        this.waitingRoomService = waitingRoomService;
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.waiting-room.tick-ms:100}")
+    public void admit() {
+        for (Long campaignId : waitingRoomRepository.campaigns()) {
+            try {
+                waitingRoomService.admit(campaignId);
+            } catch (RuntimeException e) { // 한 캠페인의 실패가 다른 캠페인의 입장을 막지 않도록
+                logger.error("failed to admit waiting users of campaign " + campaignId, e);
+            }
+        }
+    }
+
+}
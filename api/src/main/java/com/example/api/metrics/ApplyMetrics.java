@@ -0,0 +1,55 @@
+package com.example.api.metrics;
+
+import com.example.api.domain.ApplyResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 응모 요청의 결과별 처리 시간 (coupon.apply{result=issued|duplicate|sold_out|rejected|error})
+ * 응모 요청마다 호출되므로 Timer를 미리 등록해두고 요청마다 tag 조합으로 Timer를 찾지 않는다.
+ */
+@Component
+public class ApplyMetrics {
+
+    private static final String NAME = "coupon.apply";
+
+    private final Map<ApplyResult, Timer> results = new EnumMap<>(ApplyResult.class);
+
+    private final Timer rejected; // 입장 제한 초과 (429)
+
+    private final Timer error;
+
+    public ApplyMetrics(MeterRegistry meterRegistry) {
+        for (ApplyResult result : ApplyResult.values()) {
+            results.put(result, timer(meterRegistry, result.name().toLowerCase()));
+        }
+
+        this.rejected = timer(meterRegistry, "rejected");
+        this.error = timer(meterRegistry, "error");
+    }
+
+    public void record(ApplyResult result, long startNanos) {
+        results.get(result).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRejected(long startNanos) {
+        rejected.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordError(long startNanos) {
+        error.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder(NAME)
+                .description("coupon apply requests by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+}
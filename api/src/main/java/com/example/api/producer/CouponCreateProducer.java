@@ -1,19 +1,37 @@
 package com.example.api.producer;
 
+import com.example.api.domain.CouponCreatedEvent;
+import org.apache.kafka.common.PartitionInfo;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class CouponCreateProducer {
 
-    private final KafkaTemplate<String, Long> kafkaTemplate;
+    private final KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate;
 
-    public CouponCreateProducer(KafkaTemplate<String, Long> kafkaTemplate) {
+    public CouponCreateProducer(KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
 
-    public void create(Long userId) {
-        kafkaTemplate.send("coupon_create", userId); // coupon_create 토픽에 userId를 송신
+    public CompletableFuture<SendResult<String, CouponCreatedEvent>> create(Long campaignId, Long userId) {
+        return create(CouponCreatedEvent.issued(campaignId, userId));
+    }
+
+    public CompletableFuture<SendResult<String, CouponCreatedEvent>> create(CouponCreatedEvent event) { // 송신 결과는 ApplyService / CouponOutboxRelay에서 확인
+        return kafkaTemplate.send("coupon_create", recordKey(event.campaignId(), event.userId()), event); // coupon_create 토픽에 발급 이벤트를 송신
+    }
+
+    public List<PartitionInfo> partitions() { // coupon_create의 메타데이터를 가져온다 - 프로듀서가 만들어지고 파티션 리더와 연결된다
+        return kafkaTemplate.partitionsFor("coupon_create");
+    }
+
+    private String recordKey(long campaignId, long userId) { // {campaignId}:{userId} - 한 캠페인의 record도 유저별로 여러 파티션에 고르게 분산되고, 같은 유저의 record는 순서가 보장된다
+        return campaignId + ":" + userId;
     }
 
 }
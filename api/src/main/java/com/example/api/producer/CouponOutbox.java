@@ -0,0 +1,266 @@
+package com.example.api.producer;
+
+import com.example.api.domain.CouponCreatedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Redis에서 발급된 쿠폰을 coupon_create로 송신하기 전에 기록하는 로컬 outbox (append-only 로그)
+ *
+ * 로그는 segment-bytes 크기의 파일(세그먼트)을 메모리에 매핑(mmap)해서 쓰므로 append는 메모리 쓰기 한번으로 끝나고 브로커 상태와 관계가 없다.
+ * 매핑된 페이지는 OS의 페이지 캐시에 있으므로 api 프로세스가 재시작되어도 기록이 유지되며,
+ * OS 장애에 대비해 CouponOutboxRelay가 flush-interval-ms마다 디스크에 강제로 기록(force)한다.
+ *
+ * 레코드 : [magic 4][campaignId 8][userId 8][issuedAt 8][crc32c 4] = 32 bytes 고정 크기
+ * 세그먼트 파일 이름은 첫 레코드의 전역 번호(base index)이고, relay.offset 파일에 송신이 끝난 다음 레코드의 전역 번호를 기록한다.
+ * 재시작하면 마지막 세그먼트에서 checksum이 맞지 않는 첫 위치(기록 도중 중단된 레코드 포함)부터 다시 쓴다.
+ * 디렉터리의 outbox.lock 파일에 배타적 잠금을 잡아서 두 프로세스가 같은 outbox에 쓰거나 송신하지 않게 하고, 이미 잠겨 있으면 시작하지 않는다.
+ */
+@Component
+public class CouponOutbox {
+
+    static final int RECORD_BYTES = 32;
+
+    private static final int MAGIC = 0x434F5550; // "COUP" - 아직 쓰지 않은 0으로 채워진 영역과 구분
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String LOCK_FILE = "outbox.lock";
+
+    private final boolean enabled;
+
+    private final Path dir;
+
+    private final long segmentBytes;
+
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>(); // base index -> 세그먼트
+
+    private final CRC32C crc = new CRC32C(); // append(synchronized)와 시작 시점의 복구에서만 사용
+
+    private final ByteBuffer checksumBuffer = ByteBuffer.allocate(24);
+
+    private volatile Segment writeSegment;
+
+    private volatile long writeIndex; // 다음에 쓸 레코드의 전역 번호 - 갱신된 이후에만 relay가 읽을 수 있다
+
+    private volatile long readIndex; // 송신이 끝난 다음 레코드의 전역 번호
+
+    private FileChannel lockChannel; // 잠금은 채널이 닫히거나 프로세스가 종료되면 OS가 풀어준다
+
+    private FileChannel offsetChannel;
+
+    private MappedByteBuffer offsetBuffer;
+
+    public CouponOutbox(@Value("${coupon.outbox.enabled:true}") boolean enabled,
+                        @Value("${coupon.outbox.dir:outbox}") String dir,
+                        @Value("${coupon.outbox.segment-bytes:67108864}") long segmentBytes,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes - segmentBytes % RECORD_BYTES;
+
+        Gauge.builder("coupon.outbox.pending", this, CouponOutbox::pending) // 아직 coupon_create로 송신되지 않은 쿠폰 수
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Files.createDirectories(dir);
+        lock();
+        offsetChannel = FileChannel.open(dir.resolve("relay.offset"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsetBuffer = offsetChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        readIndex = offsetBuffer.getLong(0);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long baseIndex = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(baseIndex, Segment.open(file, baseIndex, Files.size(file)));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(readIndex, createSegment(readIndex));
+        }
+
+        writeSegment = segments.lastEntry().getValue();
+        writeIndex = writeSegment.baseIndex() + recover(writeSegment);
+        readIndex = Math.min(Math.max(readIndex, segments.firstKey()), writeIndex);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        flush();
+
+        for (Segment segment : segments.values()) {
+            segment.channel().close();
+        }
+
+        offsetChannel.close();
+        lockChannel.close();
+    }
+
+    public synchronized void append(CouponCreatedEvent event) {
+        Segment segment = writeSegment;
+
+        if (writeIndex - segment.baseIndex() >= segment.capacity()) { // 세그먼트가 가득 찬 경우 다음 세그먼트를 만든다
+            segment = createSegment(writeIndex);
+            segments.put(writeIndex, segment);
+            writeSegment = segment;
+        }
+
+        int offset = (int) (writeIndex - segment.baseIndex()) * RECORD_BYTES;
+        MappedByteBuffer buffer = segment.buffer();
+        buffer.putLong(offset + 4, event.campaignId());
+        buffer.putLong(offset + 12, event.userId());
+        buffer.putLong(offset + 20, event.issuedAt());
+        buffer.putInt(offset + 28, checksum(event.campaignId(), event.userId(), event.issuedAt()));
+        buffer.putInt(offset, MAGIC); // magic을 마지막에 써서 중간에 중단된 레코드는 유효하지 않게 남긴다
+
+        writeIndex++;
+    }
+
+    /**
+     * 송신되지 않은 레코드를 최대 max개 읽는다. (relay 스레드 하나에서만 호출)
+     * 읽은 레코드는 commit하기 전까지 다시 읽히므로 송신에 실패하면 같은 레코드를 다시 송신한다.
+     */
+    public List<CouponCreatedEvent> peek(int max) {
+        long end = Math.min(writeIndex, readIndex + max);
+        List<CouponCreatedEvent> events = new ArrayList<>((int) (end - readIndex));
+
+        for (long index = readIndex; index < end; index++) {
+            Segment segment = segments.floorEntry(index).getValue();
+            int offset = (int) (index - segment.baseIndex()) * RECORD_BYTES;
+            MappedByteBuffer buffer = segment.buffer();
+            events.add(new CouponCreatedEvent(buffer.getLong(offset + 4), buffer.getLong(offset + 12), buffer.getLong(offset + 20)));
+        }
+
+        return events;
+    }
+
+    public void commit(int count) { // 송신이 끝난 레코드 이후로 읽기 위치를 옮기고, 모두 송신된 세그먼트 파일은 삭제한다
+        readIndex += count;
+        offsetBuffer.putLong(0, readIndex);
+
+        Map.Entry<Long, Segment> first;
+
+        while ((first = segments.firstEntry()) != null
+                && first.getValue() != writeSegment
+                && first.getKey() + first.getValue().capacity() <= readIndex) {
+            segments.remove(first.getKey());
+            delete(first.getValue());
+        }
+    }
+
+    public void flush() { // 페이지 캐시에만 있는 기록을 디스크로 내린다 (OS 장애 대비)
+        writeSegment.buffer().force();
+        offsetBuffer.force();
+    }
+
+    public long pending() {
+        return writeIndex - readIndex;
+    }
+
+    private void lock() throws IOException { // 다른 프로세스(또는 같은 JVM의 다른 outbox)가 이미 열었으면 IllegalStateException
+        lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("outbox directory " + dir.toAbsolutePath() + " is already opened by another process");
+        }
+    }
+
+    private int recover(Segment segment) { // 유효한 레코드가 끝나는 위치 = 다음에 쓸 위치
+        MappedByteBuffer buffer = segment.buffer();
+
+        for (int i = 0; i < segment.capacity(); i++) {
+            int offset = i * RECORD_BYTES;
+
+            if (buffer.getInt(offset) != MAGIC || buffer.getInt(offset + 28) != checksum(buffer.getLong(offset + 4), buffer.getLong(offset + 12), buffer.getLong(offset + 20))) {
+                return i;
+            }
+        }
+
+        return segment.capacity();
+    }
+
+    private int checksum(long campaignId, long userId, long issuedAt) {
+        checksumBuffer.putLong(0, campaignId);
+        checksumBuffer.putLong(8, userId);
+        checksumBuffer.putLong(16, issuedAt);
+        crc.reset();
+        crc.update(checksumBuffer.array(), 0, 24);
+
+        return (int) crc.getValue();
+    }
+
+    private Segment createSegment(long baseIndex) {
+        try {
+            return Segment.open(dir.resolve(String.format("%020d", baseIndex) + SEGMENT_SUFFIX), baseIndex, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete(Segment segment) {
+        try {
+            segment.channel().close();
+            Files.deleteIfExists(segment.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Segment(Path file, long baseIndex, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+
+        static Segment open(Path file, long baseIndex, long bytes) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes); // 파일 크기가 bytes보다 작으면 0으로 채워서 늘어난다
+
+            return new Segment(file, baseIndex, (int) (bytes / RECORD_BYTES), channel, buffer);
+        }
+
+    }
+
+}
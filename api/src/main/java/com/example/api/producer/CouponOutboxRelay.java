@@ -0,0 +1,120 @@
+package com.example.api.producer;
+
+import com.example.api.domain.CouponCreatedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CouponOutbox에 기록된 쿠폰을 batch-size개씩 coupon_create 토픽으로 송신하는 relay 스레드.
+ * batch 전체가 브로커에 기록된 이후에만 outbox의 읽기 위치를 옮기고, 실패하면 retry-backoff-ms 이후에 같은 batch를 다시 송신한다.
+ * 일부만 송신된 batch가 다시 송신되어도 컨슈머의 저장은 (campaign_id, user_id) 기준으로 멱등이므로 쿠폰이 중복 발급되지 않는다.
+ */
+@Component
+public class CouponOutboxRelay {
+
+    private final CouponOutbox couponOutbox;
+
+    private final CouponCreateProducer couponCreateProducer;
+
+    private final int batchSize;
+
+    private final long pollIntervalMs;
+
+    private final long retryBackoffMs;
+
+    private final long flushIntervalNanos;
+
+    private final Logger logger = LoggerFactory.getLogger(CouponOutboxRelay.class);
+
+    private volatile boolean running;
+
+    private Thread relay;
+
+    public CouponOutboxRelay(CouponOutbox couponOutbox,
+                             CouponCreateProducer couponCreateProducer,
+                             @Value("${coupon.outbox.batch-size:500}") int batchSize,
+                             @Value("${coupon.outbox.poll-interval-ms:10}") long pollIntervalMs,
+                             @Value("${coupon.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                             @Value("${coupon.outbox.flush-interval-ms:100}") long flushIntervalMs) {
+        this.couponOutbox = couponOutbox;
+        this.couponCreateProducer = couponCreateProducer;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!couponOutbox.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        relay = new Thread(this::run, "coupon-outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException { // 송신 중인 batch는 interrupt하지 않고 기다린다 - 송신하지 못한 쿠폰은 outbox에 남아서 다음 실행 때 송신된다
+        running = false;
+
+        if (relay != null) {
+            relay.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void run() {
+        long lastFlush = System.nanoTime();
+
+        while (running) {
+            try {
+                if (System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                    couponOutbox.flush();
+                    lastFlush = System.nanoTime();
+                }
+
+                List<CouponCreatedEvent> events = couponOutbox.peek(batchSize);
+
+                if (events.isEmpty()) {
+                    Thread.sleep(pollIntervalMs);
+                    continue;
+                }
+
+                if (send(events)) {
+                    couponOutbox.commit(events.size());
+                } else {
+                    Thread.sleep(retryBackoffMs); // 브로커가 복구될 때까지 응모 요청과 관계없이 relay만 대기
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    private boolean send(List<CouponCreatedEvent> events) {
+        try {
+            CompletableFuture.allOf(events.stream()
+                            .map(couponCreateProducer::create)
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+
+            return true;
+        } catch (RuntimeException e) { // send 호출 자체가 실패(메타데이터 타임아웃)하거나 브로커가 기록에 실패한 경우
+            logger.warn("failed to relay " + events.size() + " coupons from outbox to coupon_create, " + couponOutbox.pending() + " pending", e);
+
+            return false;
+        }
+    }
+
+}
@@ -1,10 +1,14 @@
 package com.example.api.repository;
 
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.Campaign;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public class AppliedUserRepository { // 유저당 쿠폰을 한개씩만 발급할 수 있도록 하는 레포지토리(Redis의 SET 자료구조 이용 - SADD testUser 1)
+public class AppliedUserRepository { // 유저당 쿠폰을 한개씩만 발급할 수 있도록 하는 레포지토리(Redis의 SET 자료구조 이용 - SADD testUser 1, 또는 BITMAP 이용 - SETBIT testUser 1 1)
+
+    private static final long MAX_BITMAP_USER_ID = (1L << 32) - 1; // SETBIT offset의 최대값
 
     private final RedisTemplate<String, String> redisTemplate;
 
@@ -12,10 +16,44 @@ public class AppliedUserRepository { // 유저당 쿠폰을 한개씩만 발급
         this.redisTemplate = redisTemplate;
     }
 
-    public Long add(Long userId) {
+    public Long add(Campaign campaign, Long userId) { // 새로 추가된 경우 1, 이미 응모한 유저인 경우 0 (SADD의 반환값과 같은 의미)
+        if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+            Boolean previous = redisTemplate
+                    .opsForValue()
+                    .setBit(CampaignKeys.appliedUserBitmap(campaign.getId()), bitOffset(userId), true); // SETBIT key userId 1 - 이전 비트값을 반환
+
+            return Boolean.TRUE.equals(previous) ? 0L : 1L;
+        }
+
         return redisTemplate
                 .opsForSet() // Redis의 SET 자료구조 이용
-                .add("applied_user", userId.toString()); // SADD key value
+                .add(CampaignKeys.appliedUser(campaign.getId()), userId.toString()); // SADD key value
+    }
+
+    public Long remove(Campaign campaign, Long userId) { // 쿠폰을 받지 못한 유저를 다시 응모할 수 있도록 제거 (SREM key value 또는 SETBIT key userId 0)
+        if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+            Boolean previous = redisTemplate
+                    .opsForValue()
+                    .setBit(CampaignKeys.appliedUserBitmap(campaign.getId()), bitOffset(userId), false);
+
+            return Boolean.TRUE.equals(previous) ? 1L : 0L;
+        }
+
+        return redisTemplate
+                .opsForSet()
+                .remove(CampaignKeys.appliedUser(campaign.getId()), userId.toString());
+    }
+
+    public void markLegacy(Long campaignId) { // apply1~3은 발급받지 못한 유저도 applied_user에 남기거나(apply3) 기록하지 않으므로(apply1, 2) 캠페인에 표시해둔다
+        redisTemplate.opsForValue().set(CampaignKeys.legacyApply(campaignId), "1");
+    }
+
+    public static long bitOffset(Long userId) {
+        if (userId < 0 || userId > MAX_BITMAP_USER_ID) {
+            throw new IllegalArgumentException("userId out of bitmap range : " + userId);
+        }
+
+        return userId;
     }
 
 }
@@ -0,0 +1,86 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.Campaign;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CampaignKeys { // 캠페인별 Redis key - {campaignId} 해시 태그로 같은 캠페인의 key는 같은 클러스터 슬롯에(Lua 스크립트 실행 가능), 캠페인끼리는 서로 다른 슬롯에 배치된다
+
+    private CampaignKeys() {
+    }
+
+    public static String appliedUser(Long campaignId) {
+        return "applied_user:{" + campaignId + "}";
+    }
+
+    public static String appliedUserBitmap(Long campaignId) {
+        return "applied_user_bitmap:{" + campaignId + "}";
+    }
+
+    public static String appliedUser(Campaign campaign) { // 캠페인의 AppliedUserStore에 맞는 key
+        return campaign.getAppliedUserStore() == AppliedUserStore.BITMAP ? appliedUserBitmap(campaign.getId()) : appliedUser(campaign.getId());
+    }
+
+    public static String appliedUserShard(Campaign campaign, int shard) { // 재고가 샤드로 나뉜 캠페인의 중복 응모 확인용 key - 같은 샤드의 coupon_count와 같은 슬롯
+        String prefix = campaign.getAppliedUserStore() == AppliedUserStore.BITMAP ? "applied_user_bitmap:{" : "applied_user:{";
+
+        return prefix + campaign.getId() + ":" + shard + "}";
+    }
+
+    public static String appliedUser(Campaign campaign, Long userId) { // 유저의 발급 기록이 있는 key (샤드 캠페인은 유저의 홈 샤드)
+        return campaign.isStockSharded() ? appliedUserShard(campaign, campaign.getHomeShard(userId)) : appliedUser(campaign);
+    }
+
+    public static List<String> appliedUsers(Campaign campaign) { // 캠페인의 발급 기록 전체 (샤드 캠페인은 샤드마다 하나씩)
+        if (!campaign.isStockSharded()) {
+            return List.of(appliedUser(campaign));
+        }
+
+        List<String> keys = new ArrayList<>(campaign.getStockShards());
+
+        for (int shard = 0; shard < campaign.getStockShards(); shard++) {
+            keys.add(appliedUserShard(campaign, shard));
+        }
+
+        return keys;
+    }
+
+    public static String couponCount(Long campaignId) {
+        return "coupon_count:{" + campaignId + "}";
+    }
+
+    public static String couponCountShard(Long campaignId, int shard) { // 샤드마다 해시 태그가 달라서 서로 다른 슬롯(노드)에 분산된다
+        return "coupon_count:{" + campaignId + ":" + shard + "}";
+    }
+
+    public static String legacyApply(Long campaignId) { // apply1~3으로 응모를 받은 캠페인 표시 - applied_user가 발급받은 유저만의 기록이 아니므로 대사/아카이브에서 제외
+        return "legacy_apply:{" + campaignId + "}";
+    }
+
+    public static String waitingRoom(Long campaignId) { // 대기열 (score = 도착 순번)
+        return "waiting_room:{" + campaignId + "}";
+    }
+
+    public static String waitingSequence(Long campaignId) {
+        return "waiting_seq:{" + campaignId + "}";
+    }
+
+    public static String waitingAdmitting(Long campaignId) { // 대기열에서 꺼내서 응모를 처리 중인 유저 (score = 처리 기한)
+        return "waiting_admitting:{" + campaignId + "}";
+    }
+
+    public static String waitingResult(Long campaignId) { // 대기열에서 입장한 유저의 응모 결과 (userId -> ApplyResult)
+        return "waiting_result:{" + campaignId + "}";
+    }
+
+    public static String issuedCoupon(Long campaignId) { // MySQL에 저장된 쿠폰의 유저 SET - 컨슈머가 저장 직후 추가한다 (쿠폰 조회 API의 2차 캐시)
+        return "issued_coupon:{" + campaignId + "}";
+    }
+
+    public static String lifecycleLock(Long campaignId) { // 캠페인 종료 후 아카이브를 한 노드만 수행하도록 하는 잠금
+        return "campaign_lifecycle_lock:{" + campaignId + "}";
+    }
+
+}
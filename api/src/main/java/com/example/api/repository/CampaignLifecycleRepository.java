@@ -0,0 +1,130 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.Campaign;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+public class CampaignLifecycleRepository { // 캠페인 시작 전 Redis 자료구조 준비, 종료 후 발급 기록 스캔과 key 정리를 담당하는 레포지토리
+
+    private static final String WAITING_ROOM_CAMPAIGNS_KEY = "waiting_room_campaigns"; // WaitingRoomRepository와 같은 key
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = RedisScript.of(new ClassPathResource("scripts/release_lock.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public CampaignLifecycleRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void preload(Campaign campaign) { // 발급 카운터를 0으로 미리 만든다 (SET NX - 이미 발급이 시작된 카운터는 덮어쓰지 않는다)
+        if (!campaign.isStockSharded()) {
+            redisTemplate.opsForValue().setIfAbsent(CampaignKeys.couponCount(campaign.getId()), "0");
+            return;
+        }
+
+        for (int shard = 0; shard < campaign.getStockShards(); shard++) { // 샤드마다 슬롯이 다르므로 하나씩
+            redisTemplate.opsForValue().setIfAbsent(CampaignKeys.couponCountShard(campaign.getId(), shard), "0");
+        }
+    }
+
+    public String tryLock(Long campaignId, Duration ttl) { // SET NX EX - 잡은 경우 이 노드의 토큰, 다른 노드가 잡고 있으면 null (잠금을 잡은 노드가 종료되어도 ttl 이후 다른 노드가 이어서 수행한다)
+        String token = UUID.randomUUID().toString();
+
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(CampaignKeys.lifecycleLock(campaignId), token, ttl)) ? token : null;
+    }
+
+    public void unlock(Long campaignId, String token) { // 토큰이 같은 경우에만 지운다 - 작업이 ttl보다 오래 걸려서 다른 노드가 잡은 잠금을 풀지 않도록
+        redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(CampaignKeys.lifecycleLock(campaignId)), token);
+    }
+
+    public boolean isLegacy(Campaign campaign) { // apply1~3으로 응모를 받은 캠페인 - applied_user에 발급받지 못한 유저가 있거나 기록이 없다
+        return Boolean.TRUE.equals(redisTemplate.hasKey(CampaignKeys.legacyApply(campaign.getId())));
+    }
+
+    /**
+     * 쿠폰이 발급된 유저(applied_user)를 chunkSize명씩 나누어 전달한다. 한번에 chunk 하나만 메모리에 올린다.
+     * BITMAP은 GETRANGE로 chunkSize 바이트씩 읽어서 켜진 비트를 userId로 변환한다.
+     */
+    public void scanIssuedUsers(Campaign campaign, int chunkSize, Consumer<List<Long>> chunkConsumer) {
+        List<Long> chunk = new ArrayList<>(chunkSize);
+
+        for (String appliedUserKey : CampaignKeys.appliedUsers(campaign)) { // 샤드 캠페인은 샤드마다 (유저는 홈 샤드 하나에만 기록된다)
+            if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+                byte[] key = appliedUserKey.getBytes(StandardCharsets.UTF_8);
+                Long length = redisTemplate.execute((RedisCallback<Long>) connection -> connection.stringCommands().strLen(key));
+
+                for (long start = 0; length != null && start < length; start += chunkSize) {
+                    long from = start;
+                    byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().getRange(key, from, from + chunkSize - 1));
+
+                    for (int i = 0; bytes != null && i < bytes.length; i++) {
+                        for (int bit = 0; bit < 8; bit++) {
+                            if ((bytes[i] & (0x80 >>> bit)) != 0) { // SETBIT offset 0은 첫 바이트의 최상위 비트
+                                chunk.add((from + i) * 8 + bit);
+                            }
+                        }
+
+                        if (chunk.size() >= chunkSize) {
+                            chunkConsumer.accept(chunk);
+                            chunk = new ArrayList<>(chunkSize);
+                        }
+                    }
+                }
+            } else {
+                try (Cursor<String> cursor = redisTemplate.opsForSet().scan(appliedUserKey, ScanOptions.scanOptions().count(chunkSize).build())) {
+                    while (cursor.hasNext()) {
+                        chunk.add(Long.valueOf(cursor.next()));
+
+                        if (chunk.size() == chunkSize) {
+                            chunkConsumer.accept(chunk);
+                            chunk = new ArrayList<>(chunkSize);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    /**
+     * 캠페인의 발급 기록, 카운터, 대기열을 UNLINK로 지운다. (큰 SET/BITMAP도 Redis 메인 스레드를 막지 않고 백그라운드에서 해제)
+     * 대기열의 응모 결과(waiting_result)와 쿠폰 조회용 issued_coupon은 조회를 위해 남기고 각자의 만료 시간에 정리된다.
+     */
+    public void expire(Campaign campaign) {
+        List<String> keys = new ArrayList<>(CampaignKeys.appliedUsers(campaign));
+        keys.add(CampaignKeys.waitingRoom(campaign.getId()));
+        keys.add(CampaignKeys.waitingSequence(campaign.getId()));
+        keys.add(CampaignKeys.waitingAdmitting(campaign.getId()));
+        keys.add(CampaignKeys.legacyApply(campaign.getId()));
+
+        if (campaign.isStockSharded()) {
+            for (int shard = 0; shard < campaign.getStockShards(); shard++) {
+                keys.add(CampaignKeys.couponCountShard(campaign.getId(), shard));
+            }
+        } else {
+            keys.add(CampaignKeys.couponCount(campaign.getId()));
+        }
+
+        keys.forEach(redisTemplate::unlink); // 샤드 카운터는 슬롯이 서로 다르므로 key 하나씩
+
+        redisTemplate.opsForSet().remove(WAITING_ROOM_CAMPAIGNS_KEY, campaign.getId().toString());
+    }
+
+}
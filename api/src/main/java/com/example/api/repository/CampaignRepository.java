@@ -0,0 +1,22 @@
+package com.example.api.repository;
+
+import com.example.api.domain.Campaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CampaignRepository extends JpaRepository<Campaign, Long> {
+
+    List<Campaign> findByArchivedAtIsNull(); // 아직 아카이브되지 않은 캠페인 (예정, 진행 중, 종료 후 아카이브 대기)
+
+    @Transactional
+    @Modifying
+    @Query("update Campaign c set c.issuedCount = :issuedCount, c.archivedAt = :archivedAt where c.id = :id")
+    int markArchived(@Param("id") Long id, @Param("issuedCount") Long issuedCount, @Param("archivedAt") LocalDateTime archivedAt);
+
+}
@@ -0,0 +1,180 @@
+package com.example.api.repository;
+
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시에 들어온 응모 요청을 window-micros 동안(최대 max-batch-size개) 모아서 캠페인별로 한번의 Lua 스크립트 호출로 처리하는 레포지토리.
+ * 요청마다 Redis 왕복을 하는 대신 batch 하나당 캠페인별로 한번만 왕복하므로, 요청당 최대 window-micros + batch 처리 시간만큼의 지연을 대가로 처리량이 늘어난다.
+ * coupon.coalescing.enabled=true 인 경우에만 병합 스레드가 시작되며, 병합 스레드가 멈춘 경우 issue는 큐에 넣지 않고 바로 실패한다. (호출하는 쪽은 isRunning으로 확인해서 직접 발급으로 넘어간다)
+ */
+@Repository
+public class CoalescingCouponIssueRepository {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ISSUE_ALL_SCRIPT = RedisScript.of(new ClassPathResource("scripts/issue_coupons.lua"), List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final boolean enabled;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final long timeoutMillis;
+
+    private final BlockingQueue<IssueRequest> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    public CoalescingCouponIssueRepository(RedisTemplate<String, String> redisTemplate,
+                                           @Value("${coupon.coalescing.enabled:false}") boolean enabled,
+                                           @Value("${coupon.coalescing.window-micros:500}") long windowMicros,
+                                           @Value("${coupon.coalescing.max-batch-size:256}") int maxBatchSize,
+                                           @Value("${coupon.coalescing.timeout-millis:1000}") long timeoutMillis) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRunning() { // 병합 스레드가 살아서 큐를 처리하고 있는 경우 true
+        Thread thread = flusher;
+
+        return running && thread != null && thread.isAlive();
+    }
+
+    public long getTimeoutMillis() { // 응모 요청이 병합된 결과를 기다리는 최대 시간
+        return timeoutMillis;
+    }
+
+    public CompletableFuture<ApplyResult> issue(Campaign campaign, Long userId) {
+        IssueRequest request = new IssueRequest(campaign, userId, CouponIssueRepository.userIdArg(campaign, userId), new CompletableFuture<>()); // 잘못된 userId는 batch에 넣기 전에 거절
+
+        if (!isRunning()) { // 처리할 스레드가 없는 큐에 쌓이지 않도록 바로 실패
+            return CompletableFuture.failedFuture(new IllegalStateException("coupon issue coalescer is not running"));
+        }
+
+        queue.add(request);
+
+        return request.result();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        flusher = new Thread(this::run, "coupon-issue-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    private void run() {
+        List<IssueRequest> batch = new ArrayList<>(maxBatchSize);
+
+        while (running) {
+            try {
+                batch.add(queue.take()); // 첫 요청이 들어온 시점부터 window가 시작된다
+                long deadline = System.nanoTime() + windowNanos;
+
+                while (batch.size() < maxBatchSize) {
+                    IssueRequest next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                    if (next == null) {
+                        break;
+                    }
+
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        IssueRequest remaining;
+
+        while ((remaining = queue.poll()) != null) { // 종료 시점에 남아있는 요청은 실패로 응답
+            remaining.result().completeExceptionally(new IllegalStateException("coupon issue coalescer stopped"));
+        }
+    }
+
+    private void flush(List<IssueRequest> batch) {
+        Map<Long, List<IssueRequest>> byCampaign = new LinkedHashMap<>(); // 같은 캠페인의 key만 같은 슬롯에 있으므로 캠페인별로 스크립트를 호출
+
+        for (IssueRequest request : batch) {
+            byCampaign.computeIfAbsent(request.campaign().getId(), id -> new ArrayList<>()).add(request);
+        }
+
+        byCampaign.values().forEach(this::issueAll);
+    }
+
+    private void issueAll(List<IssueRequest> requests) {
+        Campaign campaign = requests.get(0).campaign();
+        String[] args = new String[requests.size() + 2];
+        args[0] = String.valueOf(campaign.getStock());
+        args[1] = campaign.getAppliedUserStore().name();
+
+        for (int i = 0; i < requests.size(); i++) {
+            args[i + 2] = requests.get(i).userIdArg();
+        }
+
+        try {
+            List<?> codes = redisTemplate.execute(
+                    ISSUE_ALL_SCRIPT,
+                    List.of(CampaignKeys.appliedUser(campaign), CampaignKeys.couponCount(campaign.getId())),
+                    (Object[]) args
+            );
+
+            for (int i = 0; i < requests.size(); i++) { // 결과를 각 요청의 future로 돌려준다
+                requests.get(i).result().complete(ApplyResult.of(((Number) codes.get(i)).longValue()));
+            }
+        } catch (RuntimeException e) {
+            requests.forEach(request -> request.result().completeExceptionally(e));
+        }
+    }
+
+    private record IssueRequest(Campaign campaign, Long userId, String userIdArg, CompletableFuture<ApplyResult> result) {
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.example.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public class CouponArchiveRepository { // 종료된 캠페인의 Redis 발급 기록을 coupon 테이블에 JDBC batch로 아카이브 (컨슈머의 CouponBatchRepository와 같은 멱등 insert)
+
+    private static final String INSERT_SQL = "insert into coupon (campaign_id, user_id) values (?, ?) on duplicate key update user_id = user_id"; // 컨슈머가 이미 저장한 쿠폰은 무시
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CouponArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void insertAll(Long campaignId, List<Long> userIds) { // rewriteBatchedStatements=true 설정으로 multi-row insert 한번으로 전송
+        jdbcTemplate.batchUpdate(
+                INSERT_SQL,
+                userIds.stream()
+                        .map(userId -> new Object[]{campaignId, userId})
+                        .toList()
+        );
+    }
+
+}
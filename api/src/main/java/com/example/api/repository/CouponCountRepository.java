@@ -12,10 +12,16 @@ public class CouponCountRepository {
         this.redisTemplate = redisTemplate;
     }
 
-    public Long increment() { // redis의 incr 명령어를 사용하기 위한 메서드 정의
+    public Long increment(Long campaignId) { // redis의 incr 명령어를 사용하기 위한 메서드 정의
         return redisTemplate
                 .opsForValue()
-                .increment("coupon_count"); // coupon_count는 key를 의미
+                .increment(CampaignKeys.couponCount(campaignId)); // coupon_count:{campaignId}는 key를 의미
+    }
+
+    public Long decrement(Long campaignId) { // 발급을 되돌리는 경우 (DECR)
+        return redisTemplate
+                .opsForValue()
+                .decrement(CampaignKeys.couponCount(campaignId));
     }
 
 }
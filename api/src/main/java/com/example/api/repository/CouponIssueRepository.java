@@ -0,0 +1,55 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class CouponIssueRepository { // 중복 확인 + 재고 확인 + 발급(SADD, INCR)을 Lua 스크립트 한번의 호출로 원자적으로 처리하는 레포지토리
+
+    private static final RedisScript<Long> ISSUE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/issue_coupon.lua"), Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/release_coupon.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public CouponIssueRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public ApplyResult issue(Campaign campaign, Long userId) {
+        Long code = redisTemplate.execute( // EVALSHA로 실행되며 스크립트가 캐시에 없으면 EVAL로 재시도
+                ISSUE_SCRIPT,
+                List.of(CampaignKeys.appliedUser(campaign), CampaignKeys.couponCount(campaign.getId())), // 두 key는 같은 해시 태그를 가지므로 같은 슬롯에 있다
+                userIdArg(campaign, userId),
+                String.valueOf(campaign.getStock()),
+                campaign.getAppliedUserStore().name()
+        );
+
+        return ApplyResult.of(code);
+    }
+
+    public boolean release(Campaign campaign, Long userId) { // issue로 발급된 쿠폰을 되돌린다 (SREM + DECR) - 기록이 남아있어서 되돌린 경우 true
+        Long released = redisTemplate.execute(
+                RELEASE_SCRIPT,
+                List.of(CampaignKeys.appliedUser(campaign), CampaignKeys.couponCount(campaign.getId())),
+                userIdArg(campaign, userId),
+                campaign.getAppliedUserStore().name()
+        );
+
+        return released != null && released == 1;
+    }
+
+    public static String userIdArg(Campaign campaign, Long userId) { // BITMAP인 경우 userId가 SETBIT offset 범위 안에 있는지 미리 확인
+        return campaign.getAppliedUserStore() == AppliedUserStore.BITMAP
+                ? String.valueOf(AppliedUserRepository.bitOffset(userId))
+                : userId.toString();
+    }
+
+}
@@ -2,6 +2,18 @@ package com.example.api.repository;
 
 import com.example.api.domain.Coupon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
+
+    long countByCampaignId(Long campaignId);
+
+    boolean existsByCampaignIdAndUserId(Long campaignId, Long userId); // uk_coupon_campaign_user 인덱스로 조회
+
+    @Query("select c.campaignId from Coupon c where c.userId = :userId order by c.id") // idx_coupon_user 인덱스로 조회
+    List<Long> findCampaignIdsByUserId(@Param("userId") Long userId);
+
 }
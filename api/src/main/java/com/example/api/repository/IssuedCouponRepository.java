@@ -0,0 +1,73 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.Campaign;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 쿠폰 조회 API의 2차 캐시 (Redis)
+ * issued_coupon:{campaignId} (SET) : MySQL에 저장된 쿠폰의 유저 - 컨슈머가 저장 직후 추가한다
+ * applied_user:{campaignId} (SET / BITMAP, 샤드 캠페인은 유저의 홈 샤드) : Redis에서 쿠폰이 발급된 유저 - 저장된 쿠폰은 모두 여기에도 있다
+ */
+@Repository
+public class IssuedCouponRepository {
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public IssuedCouponRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 파이프라인으로 SISMEMBER issued_coupon, EXISTS applied_user, SISMEMBER(GETBIT) applied_user를 한번에 확인한다. (왕복 한번)
+     * 발급 기록이 남아있는 캠페인에서 발급되지 않은 유저는 MySQL을 조회하지 않고 바로 NOT_ISSUED로 응답할 수 있다.
+     */
+    public Lookup lookup(Campaign campaign, Long userId) {
+        byte[] issuedKey = CampaignKeys.issuedCoupon(campaign.getId()).getBytes(StandardCharsets.UTF_8);
+        byte[] appliedKey = CampaignKeys.appliedUser(campaign, userId).getBytes(StandardCharsets.UTF_8);
+        byte[] member = userId.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.setCommands().sIsMember(issuedKey, member);
+            connection.keyCommands().exists(appliedKey);
+
+            if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+                connection.stringCommands().getBit(appliedKey, AppliedUserRepository.bitOffset(userId));
+            } else {
+                connection.setCommands().sIsMember(appliedKey, member);
+            }
+
+            return null;
+        });
+
+        if (Boolean.TRUE.equals(results.get(0))) {
+            return Lookup.PERSISTED;
+        }
+
+        if (Boolean.TRUE.equals(results.get(1)) && !Boolean.TRUE.equals(results.get(2))) {
+            return Lookup.NOT_ISSUED;
+        }
+
+        return Lookup.UNKNOWN; // 발급됐지만 아직 저장되지 않았거나, 발급 기록이 만료된 캠페인 - MySQL에서 확인해야 한다
+    }
+
+    public void add(Long campaignId, Long userId, Duration ttl) { // MySQL에서 확인한 쿠폰을 다시 채운다 (SADD + EXPIRE)
+        String key = CampaignKeys.issuedCoupon(campaignId);
+
+        redisTemplate.opsForSet().add(key, userId.toString());
+        redisTemplate.expire(key, ttl);
+    }
+
+    public enum Lookup {
+        PERSISTED,
+        NOT_ISSUED,
+        UNKNOWN
+    }
+
+}
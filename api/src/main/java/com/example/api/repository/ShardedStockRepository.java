@@ -0,0 +1,167 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 캠페인의 재고와 중복 응모 확인을 N개의 샤드로 나누어 여러 Redis 클러스터 슬롯에 분산시키는 레포지토리.
+ * 유저는 userId로 정해지는 홈 샤드를 가지며, 홈 샤드의 applied_user:{campaignId:shard}와 coupon_count:{campaignId:shard}는 같은 슬롯에 있으므로
+ * 중복 확인 + 재고 획득 + 기록을 issue_coupon.lua 한번으로 처리한다. (캠페인 하나의 key에 모든 요청이 몰리지 않는다)
+ * 홈 샤드의 재고가 소진된 경우에만 다른 샤드의 재고를 획득하고 홈 샤드에 유저를 기록한다. (이미 기록된 유저면 획득한 재고를 되돌린다)
+ * 샤드의 applied_user에는 재고를 획득한 유저만 남는다.
+ * 같은 유저의 요청이 동시에 다른 샤드의 재고를 획득한 경우 늦게 기록한 쪽이 재고를 되돌리는데, 그 사이에 재고 소진을 확인한 노드가 있으면
+ * 되돌린 재고가 발급되지 않을 수 있다. (드물게 한개 덜 발급될 뿐 재고보다 많이 발급되지는 않는다)
+ * 송신 실패 등으로 재고가 되돌려진 경우 SoldOutLatch의 RESET이 모든 노드의 소진된 샤드 기록을 비운다.
+ */
+@Repository
+public class ShardedStockRepository {
+
+    private static final RedisScript<Long> ISSUE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/issue_coupon.lua"), Long.class);
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/acquire_stock.lua"), Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/release_coupon.lua"), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final Map<Long, Set<Integer>> dryShards = new ConcurrentHashMap<>(); // 캠페인별로 이 노드에서 소진을 확인한 샤드 - 다시 Redis에 묻지 않고 다음 샤드로 넘어간다
+
+    public ShardedStockRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public Issue issue(Campaign campaign, Long userId) {
+        int home = campaign.getHomeShard(userId);
+        String user = CouponIssueRepository.userIdArg(campaign, userId);
+        Set<Integer> dry = dryShards.computeIfAbsent(campaign.getId(), id -> ConcurrentHashMap.newKeySet());
+
+        if (!dry.contains(home)) {
+            ApplyResult result = ApplyResult.of(redisTemplate.execute(
+                    ISSUE_SCRIPT,
+                    List.of(CampaignKeys.appliedUserShard(campaign, home), CampaignKeys.couponCountShard(campaign.getId(), home)),
+                    user,
+                    String.valueOf(campaign.getShardStock(home)),
+                    campaign.getAppliedUserStore().name()
+            ));
+
+            if (result != ApplyResult.SOLD_OUT) {
+                return new Issue(result, home);
+            }
+
+            dry.add(home);
+        }
+
+        if (isClaimed(campaign, home, user)) { // 홈 샤드가 소진된 이후에 다시 응모한 유저는 다른 샤드의 재고를 건드리지 않는다
+            return new Issue(ApplyResult.DUPLICATE, home);
+        }
+
+        int shards = campaign.getStockShards();
+
+        for (int i = 1; i < shards; i++) { // 홈 샤드가 소진된 경우 다음 샤드로 넘어가며 재고를 획득
+            int shard = (home + i) % shards;
+
+            if (dry.contains(shard)) {
+                continue;
+            }
+
+            Long acquired = redisTemplate.execute(
+                    ACQUIRE_SCRIPT,
+                    List.of(CampaignKeys.couponCountShard(campaign.getId(), shard)),
+                    String.valueOf(campaign.getShardStock(shard))
+            );
+
+            if (acquired == null || acquired != 1) {
+                dry.add(shard);
+                continue;
+            }
+
+            if (!claim(campaign, home, user)) { // 동시에 들어온 같은 유저의 요청이 먼저 기록한 경우 - 재고를 되돌리고 이 노드의 소진 기록도 비운다
+                redisTemplate.opsForValue().decrement(CampaignKeys.couponCountShard(campaign.getId(), shard));
+                reset(campaign.getId());
+                return new Issue(ApplyResult.DUPLICATE, shard);
+            }
+
+            return new Issue(ApplyResult.ISSUED, shard);
+        }
+
+        return new Issue(ApplyResult.SOLD_OUT, home);
+    }
+
+    public boolean release(Campaign campaign, Long userId, int shard) { // issue로 발급된 쿠폰을 되돌린다 - 홈 샤드의 기록을 지운 경우에만 재고를 되돌리므로 여러번 호출되어도 안전 (되돌린 경우 true)
+        int home = campaign.getHomeShard(userId);
+        String user = CouponIssueRepository.userIdArg(campaign, userId);
+        boolean released;
+
+        if (shard == home) {
+            Long code = redisTemplate.execute(
+                    RELEASE_SCRIPT,
+                    List.of(CampaignKeys.appliedUserShard(campaign, home), CampaignKeys.couponCountShard(campaign.getId(), home)),
+                    user,
+                    campaign.getAppliedUserStore().name()
+            );
+            released = code != null && code == 1;
+        } else {
+            released = unclaim(campaign, home, user); // 다른 슬롯의 key이므로 기록 삭제와 재고 반환을 나누어 실행
+
+            if (released) {
+                redisTemplate.opsForValue().decrement(CampaignKeys.couponCountShard(campaign.getId(), shard));
+            }
+        }
+
+        reset(campaign.getId());
+
+        return released;
+    }
+
+    public void reset(Long campaignId) { // 재고가 다시 채워진 경우 이 노드가 기억하는 소진된 샤드 목록을 비운다
+        dryShards.remove(campaignId);
+    }
+
+    private boolean claim(Campaign campaign, int home, String user) { // SADD 또는 SETBIT - 새로 기록된 경우 true
+        String key = CampaignKeys.appliedUserShard(campaign, home);
+
+        if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+            return !Boolean.TRUE.equals(redisTemplate.opsForValue().setBit(key, Long.parseLong(user), true));
+        }
+
+        Long added = redisTemplate.opsForSet().add(key, user);
+
+        return added != null && added == 1;
+    }
+
+    private boolean isClaimed(Campaign campaign, int home, String user) { // SISMEMBER 또는 GETBIT
+        String key = CampaignKeys.appliedUserShard(campaign, home);
+
+        if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().getBit(key, Long.parseLong(user)));
+        }
+
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(key, user));
+    }
+
+    private boolean unclaim(Campaign campaign, int home, String user) { // SREM 또는 SETBIT 0 - 기록이 있어서 지운 경우 true
+        String key = CampaignKeys.appliedUserShard(campaign, home);
+
+        if (campaign.getAppliedUserStore() == AppliedUserStore.BITMAP) {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setBit(key, Long.parseLong(user), false));
+        }
+
+        Long removed = redisTemplate.opsForSet().remove(key, user);
+
+        return removed != null && removed == 1;
+    }
+
+    public record Issue(ApplyResult result, int shard) { // shard : 재고를 획득한 샤드 (발급을 되돌릴 때 사용)
+    }
+
+}
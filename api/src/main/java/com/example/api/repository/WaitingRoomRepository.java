@@ -0,0 +1,134 @@
+package com.example.api.repository;
+
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.WaitingTicket;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Repository
+public class WaitingRoomRepository { // 캠페인별 대기열(Redis의 SORTED SET - 도착 순번 순서)과 입장한 유저의 응모 결과를 관리하는 레포지토리
+
+    private static final String CAMPAIGNS_KEY = "waiting_room_campaigns"; // 대기열이 있는 캠페인 - 입장 작업이 매 tick마다 확인한다
+
+    private static final RedisScript<Long> ENTER_SCRIPT = RedisScript.of(new ClassPathResource("scripts/enter_waiting_room.lua"), Long.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_SCRIPT = RedisScript.of(new ClassPathResource("scripts/pop_waiting_room.lua"), List.class);
+
+    private static final RedisScript<Long> SAVE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/save_waiting_results.lua"), Long.class);
+
+    private static final RedisScript<Long> REQUEUE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/requeue_waiting_room.lua"), Long.class);
+
+    private static final String ADMITTING = "ADMITTING:"; // 입장해서 응모를 처리 중인 유저의 결과 자리 표시 ('ADMITTING:도착 순번')
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public WaitingRoomRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public Long enter(Long campaignId, Long userId) { // 대기열에서의 순위(0부터 시작), 이미 응모 결과가 있으면 -1
+        Long rank = redisTemplate.execute(
+                ENTER_SCRIPT,
+                List.of(CampaignKeys.waitingRoom(campaignId), CampaignKeys.waitingSequence(campaignId), CampaignKeys.waitingResult(campaignId)),
+                userId.toString()
+        );
+
+        if (rank != null && rank == 0) { // 대기열이 새로 만들어진 경우에만 등록 - 모든 요청이 전역 key 하나의 슬롯을 거치지 않도록 (다른 슬롯의 key이므로 스크립트 밖에서 등록)
+            redisTemplate.opsForSet().add(CAMPAIGNS_KEY, campaignId.toString());
+        }
+
+        return rank;
+    }
+
+    public Long rank(Long campaignId, Long userId) { // ZRANK - 대기열에 없으면 null
+        return redisTemplate.opsForZSet().rank(CampaignKeys.waitingRoom(campaignId), userId.toString());
+    }
+
+    public WaitingTicket result(Long campaignId, Long userId) { // 입장한 유저의 응모 결과 또는 처리 중, 아직 입장하지 않았으면 null
+        Object result = redisTemplate.opsForHash().get(CampaignKeys.waitingResult(campaignId), userId.toString());
+
+        if (result == null) {
+            return null;
+        }
+
+        return result.toString().startsWith(ADMITTING) ? WaitingTicket.admitting() : WaitingTicket.done(ApplyResult.valueOf(result.toString()));
+    }
+
+    /**
+     * 대기열의 앞에서부터 count명을 꺼내면서 같은 스크립트 안에서 처리 중으로 표시한다. (ZPOPMIN - 여러 노드가 동시에 꺼내도 같은 유저가 두번 입장하지 않는다)
+     * 처리 기한(deadline)까지 결과가 저장되지 않은 유저는 꺼낸 노드가 중단된 것으로 보고 다음 호출에서 원래 순번으로 대기열에 되돌린다.
+     */
+    public List<ZSetOperations.TypedTuple<String>> popHead(Long campaignId, int count, long now, long deadline) {
+        List<?> head = redisTemplate.execute(
+                POP_SCRIPT,
+                List.of(CampaignKeys.waitingRoom(campaignId), CampaignKeys.waitingResult(campaignId), CampaignKeys.waitingAdmitting(campaignId)),
+                String.valueOf(count),
+                String.valueOf(now),
+                String.valueOf(deadline)
+        );
+
+        if (head == null) {
+            return List.of();
+        }
+
+        List<ZSetOperations.TypedTuple<String>> users = new ArrayList<>(head.size() / 2); // 순위 순서
+
+        for (int i = 0; i < head.size(); i += 2) {
+            users.add(ZSetOperations.TypedTuple.of(head.get(i).toString(), Double.valueOf(head.get(i + 1).toString())));
+        }
+
+        return users;
+    }
+
+    public void requeue(Long campaignId, ZSetOperations.TypedTuple<String> user) { // 응모 처리에 실패한 유저의 처리 중 표시를 지우고 원래 순번으로 되돌린다
+        redisTemplate.execute(
+                REQUEUE_SCRIPT,
+                List.of(CampaignKeys.waitingRoom(campaignId), CampaignKeys.waitingResult(campaignId), CampaignKeys.waitingAdmitting(campaignId)),
+                user.getValue(),
+                String.valueOf(user.getScore().longValue())
+        );
+    }
+
+    public void saveResults(Long campaignId, Map<Long, ApplyResult> results, Duration ttl) { // 처리 중 표시를 결과로 바꾼다 - 이미 저장된 결과는 덮어쓰지 않는다
+        List<String> args = new ArrayList<>(results.size() * 2 + 1);
+        args.add(String.valueOf(ttl.toSeconds())); // 이벤트가 끝나고 조회가 없어지면 정리
+        results.forEach((userId, result) -> {
+            args.add(userId.toString());
+            args.add(result.name());
+        });
+
+        redisTemplate.execute(
+                SAVE_SCRIPT,
+                List.of(CampaignKeys.waitingResult(campaignId), CampaignKeys.waitingAdmitting(campaignId)),
+                args.toArray()
+        );
+    }
+
+    public Set<Long> campaigns() {
+        Set<String> campaigns = redisTemplate.opsForSet().members(CAMPAIGNS_KEY);
+
+        return campaigns == null ? Set.of() : campaigns.stream().map(Long::valueOf).collect(Collectors.toSet());
+    }
+
+    public void close(Long campaignId) { // 재고가 소진된 캠페인의 대기열을 지운다 - 남아있던 유저는 상태 조회에서 SOLD_OUT으로 응답
+        redisTemplate.delete(List.of(CampaignKeys.waitingRoom(campaignId), CampaignKeys.waitingSequence(campaignId)));
+
+        Long admitting = redisTemplate.opsForZSet().zCard(CampaignKeys.waitingAdmitting(campaignId));
+
+        if (admitting == null || admitting == 0) { // 처리 중인 유저가 남아있으면 중단된 노드의 유저를 되돌려 처리할 수 있도록 입장 작업 대상에 남긴다
+            redisTemplate.opsForSet().remove(CAMPAIGNS_KEY, campaignId.toString());
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AdmissionLimiter { // 동시에 Redis/Kafka까지 진입하는 응모 요청 수를 제한하고, 초과한 요청은 기다리게 하지 않고 바로 거절하기 위한 리미터
+
+    private final Semaphore permits;
+
+    private final long maxWaitMs;
+
+    public AdmissionLimiter(@Value("${coupon.admission.max-concurrent:200}") int maxConcurrent, @Value("${coupon.admission.max-wait-ms:5}") long maxWaitMs) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public boolean tryAcquire() { // max-wait-ms 안에 자리가 나지 않으면 false (요청 스레드가 쌓이면서 지연시간이 늘어나는 것을 막는다)
+        try {
+            return permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+}
@@ -1,12 +1,33 @@
 package com.example.api.service;
 
+import com.example.api.cache.CampaignCache;
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
 import com.example.api.domain.Coupon;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.domain.CouponIssueTimeoutException;
 import com.example.api.producer.CouponCreateProducer;
+import com.example.api.producer.CouponOutbox;
 import com.example.api.repository.AppliedUserRepository;
+import com.example.api.repository.CoalescingCouponIssueRepository;
 import com.example.api.repository.CouponCountRepository;
+import com.example.api.repository.CouponIssueRepository;
 import com.example.api.repository.CouponRepository;
+import com.example.api.repository.ShardedStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
 @Service
 public class ApplyService {
 
@@ -18,49 +39,285 @@ public class ApplyService {
 
     private final AppliedUserRepository appliedUserRepository;
 
-    public ApplyService(CouponRepository couponRepository, CouponCountRepository couponCountRepository, CouponCreateProducer couponCreateProducer, AppliedUserRepository appliedUserRepository) {
+    private final CouponIssueRepository couponIssueRepository;
+
+    private final SoldOutLatch soldOutLatch;
+
+    private final CampaignCache campaignCache;
+
+    private final ShardedStockRepository shardedStockRepository;
+
+    private final CoalescingCouponIssueRepository coalescingCouponIssueRepository;
+
+    private final CouponOutbox couponOutbox;
+
+    private final Set<Long> legacyCampaigns = ConcurrentHashMap.newKeySet(); // 이 노드가 apply1~3 응모를 Redis에 표시한 캠페인 - 캠페인마다 한번만 기록
+
+    private final Logger logger = LoggerFactory.getLogger(ApplyService.class);
+
+    public ApplyService(CouponRepository couponRepository, CouponCountRepository couponCountRepository, CouponCreateProducer couponCreateProducer, AppliedUserRepository appliedUserRepository, CouponIssueRepository couponIssueRepository, SoldOutLatch soldOutLatch, CampaignCache campaignCache, ShardedStockRepository shardedStockRepository, CoalescingCouponIssueRepository coalescingCouponIssueRepository, CouponOutbox couponOutbox) {
         this.couponRepository = couponRepository;
         this.couponCountRepository = couponCountRepository;
         this.couponCreateProducer = couponCreateProducer;
         this.appliedUserRepository = appliedUserRepository;
+        this.couponIssueRepository = couponIssueRepository;
+        this.soldOutLatch = soldOutLatch;
+        this.campaignCache = campaignCache;
+        this.shardedStockRepository = shardedStockRepository;
+        this.coalescingCouponIssueRepository = coalescingCouponIssueRepository;
+        this.couponOutbox = couponOutbox;
+    }
+
+    public void apply1(Long userId) { // 기본 캠페인(coupon.default-stock)에 응모
+        apply1(Campaign.DEFAULT_ID, userId);
     }
 
-    public void apply1(Long userId) { // 쿠폰 발급 로직
+    public void apply1(Long campaignId, Long userId) { // 쿠폰 발급 로직
+        if (soldOutLatch.isSoldOut(campaignId)) { // 재고가 소진된 이후의 요청은 Redis까지 가지 않고 로컬 메모리에서 바로 거절
+            return;
+        }
+
+        Campaign campaign = campaignCache.get(campaignId);
+
+        if (!isOpen(campaign)) {
+            return;
+        }
+
+        markLegacy(campaignId);
+
 //      long count = couponRepository.count();// 쿠폰발급 (쿠폰의 갯수 가져오기)
-        Long count = couponCountRepository.increment(); // redis를 이용한 쿠폰 발급
+        Long count = couponCountRepository.increment(campaignId); // redis를 이용한 쿠폰 발급
 
-        if (count > 100) { // 쿠폰의 갯수가 발급 가능한 갯수를 초과한 경우에는 발급하지 않음
+        if (count > campaign.getStock()) { // 쿠폰의 갯수가 발급 가능한 갯수를 초과한 경우에는 발급하지 않음
+            soldOutLatch.markSoldOut(campaignId);
             return;
         }
 
         // 쿠폰 발급이 가능한 경우
-        couponRepository.save(new Coupon(userId));
+        couponRepository.save(new Coupon(campaignId, userId));
     }
 
-    public void apply2(Long userId) { // kafka를 이용한 쿠폰 발급 로직
-        Long count = couponCountRepository.increment();
+    public void apply2(Long userId) {
+        apply2(Campaign.DEFAULT_ID, userId);
+    }
+
+    public void apply2(Long campaignId, Long userId) { // kafka를 이용한 쿠폰 발급 로직
+        if (soldOutLatch.isSoldOut(campaignId)) {
+            return;
+        }
+
+        Campaign campaign = campaignCache.get(campaignId);
 
-        if (count > 100) { // 쿠폰의 갯수가 발급 가능한 갯수를 초과한 경우에는 발급하지 않음
+        if (!isOpen(campaign)) {
             return;
         }
 
-        couponCreateProducer.create(userId);
+        markLegacy(campaignId);
+
+        Long count = couponCountRepository.increment(campaignId);
+
+        if (count > campaign.getStock()) { // 쿠폰의 갯수가 발급 가능한 갯수를 초과한 경우에는 발급하지 않음
+            soldOutLatch.markSoldOut(campaignId);
+            return;
+        }
+
+        publish(campaignId, userId, () -> couponCountRepository.decrement(campaignId) < campaign.getStock()); // 소진 이후에도 카운터가 계속 증가하므로 재고 아래로 내려간 경우에만 재고가 생긴다
+    }
+
+    public void apply3(Long userId) {
+        apply3(Campaign.DEFAULT_ID, userId);
     }
 
-    public void apply3(Long userId) { // kafka를 이용한 쿠폰 발급 로직 + Redis의 SET 자료구조를 이용해 유저당 쿠폰을 한개씩만 발급할 수 있게 하는 로직
-        Long add = appliedUserRepository.add(userId);
+    public void apply3(Long campaignId, Long userId) { // kafka를 이용한 쿠폰 발급 로직 + Redis의 SET 자료구조를 이용해 유저당 쿠폰을 한개씩만 발급할 수 있게 하는 로직
+        if (soldOutLatch.isSoldOut(campaignId)) {
+            return;
+        }
+
+        Campaign campaign = campaignCache.get(campaignId);
+
+        if (!isOpen(campaign)) {
+            return;
+        }
+
+        markLegacy(campaignId);
+
+        Long add = appliedUserRepository.add(campaign, userId);
 
         if (add != 1) {
             return;
         }
 
-        Long count = couponCountRepository.increment();
+        Long count = couponCountRepository.increment(campaignId);
 
-        if (count > 100) { // 쿠폰의 갯수가 발급 가능한 갯수를 초과한 경우에는 발급하지 않음
+        if (count > campaign.getStock()) { // 쿠폰의 갯수가 발급 가능한 갯수를 초과한 경우에는 발급하지 않음
+            soldOutLatch.markSoldOut(campaignId);
             return;
         }
 
-        couponCreateProducer.create(userId);
+        publish(campaignId, userId, () -> {
+            appliedUserRepository.remove(campaign, userId);
+            return couponCountRepository.decrement(campaignId) < campaign.getStock();
+        });
+    }
+
+    public ApplyResult apply4(Long userId) {
+        return apply4(Campaign.DEFAULT_ID, userId);
+    }
+
+    /**
+     * apply3은 SADD, INCR 두번의 Redis 왕복이 필요하고 재고가 소진된 이후에도 coupon_count를 계속 증가시키며,
+     * 쿠폰을 받지 못한 유저도 applied_user에 남는다.
+     * apply4는 중복 확인 + 재고 확인 + 발급을 Lua 스크립트로 한번에 원자적으로 처리하므로 Redis 왕복이 절반으로 줄고,
+     * 재고가 소진된 이후에는 Redis가 더 이상 쓰기 작업을 하지 않는다.
+     * 재고가 샤드로 나뉜 캠페인은 coupon_count 하나에 부하가 몰리지 않도록 샤드 카운터에서 재고를 획득한다.
+     */
+    public ApplyResult apply4(Long campaignId, Long userId) {
+        if (soldOutLatch.isSoldOut(campaignId)) {
+            return ApplyResult.SOLD_OUT;
+        }
+
+        Campaign campaign = campaignCache.get(campaignId);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (campaign.isBeforeStart(now)) { // 시작 전/종료 이후의 응모는 Redis까지 가지 않고 로컬에서 거절 (재고와 applied_user에 남지 않는다)
+            return ApplyResult.NOT_STARTED;
+        }
+
+        if (campaign.isEnded(now)) {
+            return ApplyResult.ENDED;
+        }
+
+        if (campaign.isStockSharded()) {
+            return applySharded(campaign, userId);
+        }
+
+        ApplyResult result = coalescingCouponIssueRepository.isRunning()
+                ? issueCoalesced(campaign, userId) // 다른 요청들과 모아서 한번의 스크립트 호출로 처리
+                : couponIssueRepository.issue(campaign, userId); // 병합이 꺼져 있거나 병합 스레드가 멈춘 경우에는 직접 스크립트를 호출
+
+        if (result == ApplyResult.SOLD_OUT) {
+            soldOutLatch.markSoldOut(campaignId);
+        }
+
+        if (result != ApplyResult.ISSUED) { // 중복 응모이거나 재고가 소진된 경우에는 발급하지 않음
+            return result;
+        }
+
+        publish(campaignId, userId, () -> couponIssueRepository.release(campaign, userId)); // 스크립트는 재고 안에서만 카운터를 올리므로 되돌리면 한개가 생긴다
+
+        return result;
+    }
+
+    private boolean isOpen(Campaign campaign) { // apply4와 같이 시작 전/종료 이후의 응모는 Redis까지 가지 않고 거절 (apply1~3은 결과를 응답하지 않는다)
+        LocalDateTime now = LocalDateTime.now();
+
+        return !campaign.isBeforeStart(now) && !campaign.isEnded(now);
+    }
+
+    private void markLegacy(Long campaignId) { // 컨슈머의 대사 작업은 applied_user를 발급받은 유저로 보므로 apply1~3으로 응모를 받은 캠페인은 비교하지 않게 한다
+        if (!legacyCampaigns.add(campaignId)) {
+            return;
+        }
+
+        try {
+            appliedUserRepository.markLegacy(campaignId);
+        } catch (RuntimeException e) { // 기록하지 못했으면 다음 응모에서 다시 시도
+            legacyCampaigns.remove(campaignId);
+            throw e;
+        }
+    }
+
+    private ApplyResult issueCoalesced(Campaign campaign, Long userId) { // 제한 시간 안에 결과가 오지 않으면 CouponIssueTimeoutException
+        CompletableFuture<ApplyResult> pending = coalescingCouponIssueRepository.issue(campaign, userId);
+
+        try {
+            return pending.get(coalescingCouponIssueRepository.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(pending, campaign, userId);
+            throw new CouponIssueTimeoutException(campaign.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(pending, campaign, userId);
+            throw new CouponIssueTimeoutException(campaign.getId(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void abandon(CompletableFuture<ApplyResult> pending, Campaign campaign, Long userId) { // 실패로 응답한 요청이 나중에 발급된 경우 발급을 되돌린다 (병합 스레드를 막지 않도록 별도의 스레드에서)
+        pending.thenAcceptAsync(late -> {
+            if (late != ApplyResult.ISSUED) {
+                return;
+            }
+
+            logger.warn("coupon of campaign " + campaign.getId() + " by " + userId + " issued after timeout, releasing");
+
+            if (couponIssueRepository.release(campaign, userId)) {
+                soldOutLatch.reset(campaign.getId());
+            }
+        });
+    }
+
+    private ApplyResult applySharded(Campaign campaign, Long userId) { // 홈 샤드에서 중복 확인과 재고 획득을 한번에 처리 (홈 샤드가 소진된 경우에만 다른 샤드로)
+        ShardedStockRepository.Issue issue = shardedStockRepository.issue(campaign, userId);
+
+        if (issue.result() == ApplyResult.SOLD_OUT) { // 모든 샤드가 소진된 경우
+            soldOutLatch.markSoldOut(campaign.getId());
+        }
+
+        if (issue.result() != ApplyResult.ISSUED) {
+            return issue.result();
+        }
+
+        publish(campaign.getId(), userId, () -> shardedStockRepository.release(campaign, userId, issue.shard()));
+
+        return ApplyResult.ISSUED;
+    }
+
+    /**
+     * Redis에서 이미 발급 처리된 쿠폰을 coupon_create 토픽으로 송신한다.
+     * outbox가 켜져 있으면 로컬 outbox 파일에만 기록하고 바로 반환하므로 응모 지연시간이 브로커 상태와 분리된다. (송신은 CouponOutboxRelay)
+     * outbox에 기록하지 못한 경우에는 직접 송신하고, 송신에 실패하면 쿠폰이 유실되지 않도록 Redis의 발급을 되돌리고(compensation)
+     * 재고 소진 래치를 다시 열어서 다른 유저가 발급받을 수 있게 한다.
+     * 송신 결과 콜백은 프로듀서 I/O 스레드를 막지 않도록 별도의 스레드에서 실행한다.
+     */
+    private void publish(Long campaignId, Long userId, BooleanSupplier compensation) {
+        if (Campaign.WARM_UP_ID.equals(campaignId)) { // 워밍업 응모는 Redis에서만 발급되고 쿠폰으로 저장되지 않는다
+            return;
+        }
+
+        CouponCreatedEvent event = CouponCreatedEvent.issued(campaignId, userId); // 발급 시각은 outbox를 거쳐도 Redis에서 발급된 시점으로 남는다
+
+        if (couponOutbox.isEnabled()) {
+            try {
+                couponOutbox.append(event);
+                return;
+            } catch (RuntimeException e) { // 디스크가 가득 찬 경우 등
+                logger.error("failed to append coupon of campaign " + campaignId + " by " + userId + " to outbox, sending directly", e);
+            }
+        }
+
+        try {
+            couponCreateProducer.create(event).whenCompleteAsync((result, e) -> {
+                if (e != null) {
+                    compensate(campaignId, userId, compensation, e);
+                }
+            });
+        } catch (RuntimeException e) { // 메타데이터를 가져오지 못하는 경우 등 send 호출 자체가 실패한 경우
+            compensate(campaignId, userId, compensation, e);
+        }
+    }
+
+    private void compensate(Long campaignId, Long userId, BooleanSupplier compensation, Throwable cause) { // compensation : 되돌린 결과 재고가 다시 생긴 경우 true
+        logger.error("failed to send coupon_create by " + userId + ", releasing coupon of campaign " + campaignId, cause);
+
+        if (compensation.getAsBoolean()) { // 재고가 생기지 않았으면 래치를 열어도 Redis 요청만 늘어난다 (RESET은 SoldOutLatch가 모아서 전파)
+            soldOutLatch.reset(campaignId);
+        }
     }
 
 }
@@ -0,0 +1,152 @@
+package com.example.api.service;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.Campaign;
+import com.example.api.repository.CampaignLifecycleRepository;
+import com.example.api.repository.CampaignRepository;
+import com.example.api.repository.CouponArchiveRepository;
+import com.example.api.repository.CouponRepository;
+import com.example.api.repository.ShardedStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 캠페인의 시작 전 준비와 종료 후 정리.
+ * 1. 시작 preload-lead 전 : 모든 노드가 MySQL의 최신 캠페인 정보로 로컬 캐시를 채우고 발급 카운터를 미리 만든다.
+ *    시작 전 응모는 ApplyService가 로컬 캐시의 시작 시간만 보고 거절하므로 재고와 applied_user에 남지 않는다.
+ * 2. 종료 archive-delay 이후 : outbox/컨슈머가 남은 쿠폰을 저장할 시간을 준 뒤 한 노드가 발급 기록(applied_user)을 coupon 테이블에
+ *    chunk 단위 batch insert로 아카이브하고 캠페인의 Redis key를 지운다.
+ *    applied_user는 apply4가 재고를 획득한 유저만 기록하므로 그대로 아카이브하고, apply1~3으로 응모를 받은 캠페인(legacy_apply)은
+ *    발급받지 못한 유저도 남아있으므로 아카이브하지 않고 컨슈머가 저장한 쿠폰만 남긴다.
+ *    tick마다 각 노드가 로컬 상태(캐시, 래치)를 정리하고, 아카이브가 끝나면 pub/sub(CLEAR:{campaignId})으로 모든 노드에 한번 더 알린다.
+ *    (아카이브 이후에는 캠페인이 조회 대상에서 빠지므로 그 사이에 tick이 돌지 않은 노드도 정리되도록)
+ * 아카이브는 멱등이므로 도중에 실패해도 잠금이 만료된 이후 다른 노드가 처음부터 다시 수행한다. 잠금은 토큰이 같은 경우에만 해제한다.
+ * 이벤트가 연속되어도 Redis에는 진행 중인 캠페인의 key만 남으므로 메모리 사용량이 일정하게 유지된다.
+ */
+@Service
+public class CampaignLifecycleService {
+
+    private final CampaignRepository campaignRepository;
+
+    private final CampaignLifecycleRepository campaignLifecycleRepository;
+
+    private final CouponArchiveRepository couponArchiveRepository;
+
+    private final CouponRepository couponRepository;
+
+    private final CampaignCache campaignCache;
+
+    private final SoldOutLatch soldOutLatch;
+
+    private final ShardedStockRepository shardedStockRepository;
+
+    private final Duration preloadLead;
+
+    private final Duration archiveDelay;
+
+    private final Duration lockTtl;
+
+    private final int chunkSize;
+
+    private final Set<Long> preloaded = ConcurrentHashMap.newKeySet(); // 이 노드가 준비를 마친 캠페인
+
+    private final Logger logger = LoggerFactory.getLogger(CampaignLifecycleService.class);
+
+    public CampaignLifecycleService(CampaignRepository campaignRepository,
+                                    CampaignLifecycleRepository campaignLifecycleRepository,
+                                    CouponArchiveRepository couponArchiveRepository,
+                                    CouponRepository couponRepository,
+                                    CampaignCache campaignCache,
+                                    SoldOutLatch soldOutLatch,
+                                    ShardedStockRepository shardedStockRepository,
+                                    @Value("${coupon.lifecycle.preload-lead-seconds:300}") long preloadLeadSeconds,
+                                    @Value("${coupon.lifecycle.archive-delay-seconds:300}") long archiveDelaySeconds,
+                                    @Value("${coupon.lifecycle.lock-ttl-seconds:300}") long lockTtlSeconds,
+                                    @Value("${coupon.lifecycle.chunk-size:1000}") int chunkSize) {
+        this.campaignRepository = campaignRepository;
+        this.campaignLifecycleRepository = campaignLifecycleRepository;
+        this.couponArchiveRepository = couponArchiveRepository;
+        this.couponRepository = couponRepository;
+        this.campaignCache = campaignCache;
+        this.soldOutLatch = soldOutLatch;
+        this.shardedStockRepository = shardedStockRepository;
+        this.preloadLead = Duration.ofSeconds(preloadLeadSeconds);
+        this.archiveDelay = Duration.ofSeconds(archiveDelaySeconds);
+        this.lockTtl = Duration.ofSeconds(lockTtlSeconds);
+        this.chunkSize = chunkSize;
+    }
+
+    public void advance(Campaign campaign, LocalDateTime now) { // 캠페인의 시간에 맞는 단계를 수행 (CampaignLifecycleJob이 tick마다 호출)
+        if (campaign.getEndAt() != null && !now.isBefore(campaign.getEndAt().plus(archiveDelay))) {
+            clear(campaign.getId());
+            archive(campaign, now);
+            return;
+        }
+
+        boolean preloadable = !campaign.isEnded(now) && (campaign.getStartAt() == null || !now.isBefore(campaign.getStartAt().minus(preloadLead)));
+
+        if (preloadable && !preloaded.contains(campaign.getId())) {
+            preload(campaign);
+        }
+    }
+
+    private void preload(Campaign campaign) {
+        campaignLifecycleRepository.preload(campaign);
+        campaignCache.put(campaign); // 시작 전에 변경된 재고/시간이 반영되도록 교체
+        soldOutLatch.forget(campaign.getId());
+        shardedStockRepository.reset(campaign.getId());
+        preloaded.add(campaign.getId());
+
+        logger.info("campaign " + campaign.getId() + " preloaded : stock " + campaign.getStock() + ", starts at " + campaign.getStartAt());
+    }
+
+    public void onMessage(String message) { // 다른 노드가 아카이브를 끝낸 캠페인의 로컬 상태를 정리 (CLEAR:{campaignId}, 그 외 메세지는 무시)
+        String prefix = SoldOutLatch.CLEAR_MESSAGE + SoldOutLatch.DELIMITER;
+
+        if (message.startsWith(prefix)) {
+            clear(Long.valueOf(message.substring(prefix.length())));
+        }
+    }
+
+    private void clear(Long campaignId) { // 이 노드의 로컬 상태 정리 - 이후의 응모는 캠페인을 다시 읽어서 ENDED로 응답
+        campaignCache.evict(campaignId);
+        soldOutLatch.forget(campaignId);
+        shardedStockRepository.reset(campaignId);
+        preloaded.remove(campaignId);
+    }
+
+    private void archive(Campaign campaign, LocalDateTime now) {
+        String token = campaignLifecycleRepository.tryLock(campaign.getId(), lockTtl);
+
+        if (token == null) { // 다른 노드가 아카이브 중
+            return;
+        }
+
+        try {
+            if (campaignLifecycleRepository.isLegacy(campaign)) { // applied_user에 발급받지 못한 유저가 섞여 있으므로 쿠폰으로 옮기지 않는다
+                logger.warn("campaign " + campaign.getId() + " took apply1~3 requests, skipping archive of applied users");
+            } else {
+                campaignLifecycleRepository.scanIssuedUsers(campaign, chunkSize, userIds -> couponArchiveRepository.insertAll(campaign.getId(), userIds));
+            }
+
+            campaignLifecycleRepository.expire(campaign); // 아카이브 표시 전에 지워야 표시에 실패해도 다음 tick에 다시 정리된다
+
+            long issuedCount = couponRepository.countByCampaignId(campaign.getId());
+            campaignRepository.markArchived(campaign.getId(), issuedCount, now);
+            soldOutLatch.publishClear(campaign.getId());
+
+            logger.info("campaign " + campaign.getId() + " archived : " + issuedCount + " coupons issued / stock " + campaign.getStock());
+        } finally {
+            campaignLifecycleRepository.unlock(campaign.getId(), token);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.example.api.service;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.domain.Campaign;
+import com.example.api.repository.CouponRepository;
+import com.example.api.repository.IssuedCouponRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 유저의 쿠폰 조회 - 이벤트 직후 당첨자들이 한꺼번에 쿠폰함을 확인해도 MySQL로 몰리지 않도록 2단계 캐시를 거친다.
+ * 1. JVM 로컬 캐시 (Caffeine, 최대 max-size개) - 같은 key의 동시 조회는 한번만 로드하고 나머지는 그 결과를 기다린다.
+ * 2. Redis - 컨슈머가 저장 직후 채우는 issued_coupon과 발급 기록(applied_user)으로 대부분의 조회에 응답한다.
+ * 3. MySQL - Redis로 판단할 수 없는 경우(저장 대기 중, 발급 기록 만료)에만 인덱스로 조회하고 찾은 쿠폰은 Redis에 다시 채운다.
+ * 발급되지 않은 결과는 곧 저장될 수 있으므로 not-issued-ttl 동안만 보관한다.
+ * 쿠폰함(유저의 쿠폰 목록)은 Redis 단계를 거치지 않고 1 -> 3으로 조회한다. Redis의 발급 기록은 캠페인별로만 있고 유저별 목록이 없으며,
+ * 아카이브(CampaignLifecycleService)는 Redis를 거치지 않고 coupon에 바로 저장하므로 유저별 목록을 Redis에 두면 빠지는 쿠폰이 생긴다.
+ * 대신 idx_coupon_user 인덱스로 조회하고 wallet-ttl 동안 로컬 캐시에 보관한다. (같은 유저의 동시 조회는 한번만 로드한다)
+ */
+@Service
+public class CouponLookupService {
+
+    private final CampaignCache campaignCache;
+
+    private final IssuedCouponRepository issuedCouponRepository;
+
+    private final CouponRepository couponRepository;
+
+    private final Duration redisTtl;
+
+    private final LoadingCache<CouponKey, Boolean> issued;
+
+    private final LoadingCache<Long, List<Long>> wallets; // 유저가 가진 쿠폰의 캠페인 목록 (MySQL에서만 조회 가능)
+
+    private final Counter redisHits;
+
+    private final Counter databaseLoads;
+
+    public CouponLookupService(CampaignCache campaignCache,
+                               IssuedCouponRepository issuedCouponRepository,
+                               CouponRepository couponRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${coupon.lookup.max-size:1000000}") long maxSize,
+                               @Value("${coupon.lookup.issued-ttl-seconds:600}") long issuedTtlSeconds,
+                               @Value("${coupon.lookup.not-issued-ttl-seconds:1}") long notIssuedTtlSeconds,
+                               @Value("${coupon.lookup.wallet-ttl-seconds:5}") long walletTtlSeconds,
+                               @Value("${coupon.lookup.redis-ttl-seconds:604800}") long redisTtlSeconds) {
+        this.campaignCache = campaignCache;
+        this.issuedCouponRepository = issuedCouponRepository;
+        this.couponRepository = couponRepository;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+
+        Duration issuedTtl = Duration.ofSeconds(issuedTtlSeconds);
+        Duration notIssuedTtl = Duration.ofSeconds(notIssuedTtlSeconds);
+
+        this.issued = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new IssuedExpiry(issuedTtl, notIssuedTtl))
+                .recordStats()
+                .build(this::load);
+        this.wallets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(walletTtlSeconds))
+                .recordStats()
+                .build(this::loadWallet);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, issued, "coupon.lookup");
+        CaffeineCacheMetrics.monitor(meterRegistry, wallets, "coupon.wallet");
+        this.redisHits = loads(meterRegistry, "redis");
+        this.databaseLoads = loads(meterRegistry, "mysql");
+    }
+
+    public boolean hasCoupon(Long campaignId, Long userId) {
+        campaignCache.get(campaignId); // 존재하지 않는 캠페인은 캐시에 넣기 전에 거절 (CampaignNotFoundException)
+
+        return issued.get(new CouponKey(campaignId, userId));
+    }
+
+    public List<Long> findCampaignIds(Long userId) {
+        return wallets.get(userId);
+    }
+
+    private Boolean load(CouponKey key) {
+        Campaign campaign = campaignCache.get(key.campaignId());
+
+        switch (issuedCouponRepository.lookup(campaign, key.userId())) {
+            case PERSISTED:
+                redisHits.increment();
+                return true;
+            case NOT_ISSUED:
+                redisHits.increment();
+                return false;
+            default:
+                databaseLoads.increment();
+        }
+
+        boolean exists = couponRepository.existsByCampaignIdAndUserId(key.campaignId(), key.userId());
+
+        if (exists) {
+            issuedCouponRepository.add(key.campaignId(), key.userId(), redisTtl);
+        }
+
+        return exists;
+    }
+
+    private List<Long> loadWallet(Long userId) {
+        databaseLoads.increment();
+
+        return couponRepository.findCampaignIdsByUserId(userId);
+    }
+
+    private Counter loads(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("coupon.lookup.loads")
+                .description("coupon lookups missed in local cache by the tier that answered")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private record CouponKey(Long campaignId, Long userId) {
+    }
+
+    private record IssuedExpiry(Duration issuedTtl, Duration notIssuedTtl) implements Expiry<CouponKey, Boolean> { // 로드된 결과에 따라 만료 시간이 다르다
+
+        @Override
+        public long expireAfterCreate(CouponKey key, Boolean issued, long currentTime) {
+            return (issued ? issuedTtl : notIssuedTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(CouponKey key, Boolean issued, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, issued, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(CouponKey key, Boolean issued, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
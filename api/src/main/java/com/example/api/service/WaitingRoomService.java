@@ -0,0 +1,153 @@
+package com.example.api.service;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.domain.CouponIssueTimeoutException;
+import com.example.api.domain.WaitingTicket;
+import com.example.api.repository.CouponIssueRepository;
+import com.example.api.repository.WaitingRoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대기열(waiting room) 모드의 응모.
+ * 응모 요청은 대기열에 도착 순서대로 들어가고 순위를 바로 응답받으며, 클라이언트는 결과가 나올 때까지 상태 조회만 반복한다.
+ * 발급(apply4)은 WaitingRoomAdmissionJob이 tick마다 대기열의 앞에서부터 admit-per-tick명씩 꺼내서 처리하므로
+ * 요청이 한꺼번에 몰려도 Redis 발급 스크립트와 Kafka에는 일정한 속도로만 전달된다. (api 노드 수 x admit-per-tick / tick-ms)
+ * 한 노드가 꺼낸 유저들은 순위 순서대로 발급하므로 재고는 먼저 도착한 유저부터 소진된다. (노드끼리는 tick 단위로 순서가 섞일 수 있다)
+ */
+@Service
+public class WaitingRoomService {
+
+    private final WaitingRoomRepository waitingRoomRepository;
+
+    private final ApplyService applyService;
+
+    private final CampaignCache campaignCache;
+
+    private final SoldOutLatch soldOutLatch;
+
+    private final int admitPerTick;
+
+    private final Duration resultTtl;
+
+    private final long admitTimeoutMillis;
+
+    private final Logger logger = LoggerFactory.getLogger(WaitingRoomService.class);
+
+    public WaitingRoomService(WaitingRoomRepository waitingRoomRepository,
+                              ApplyService applyService,
+                              CampaignCache campaignCache,
+                              SoldOutLatch soldOutLatch,
+                              @Value("${coupon.waiting-room.admit-per-tick:500}") int admitPerTick,
+                              @Value("${coupon.waiting-room.result-ttl-seconds:86400}") long resultTtlSeconds,
+                              @Value("${coupon.waiting-room.admit-timeout-seconds:30}") long admitTimeoutSeconds) {
+        this.waitingRoomRepository = waitingRoomRepository;
+        this.applyService = applyService;
+        this.campaignCache = campaignCache;
+        this.soldOutLatch = soldOutLatch;
+        this.admitPerTick = admitPerTick;
+        this.resultTtl = Duration.ofSeconds(resultTtlSeconds);
+        this.admitTimeoutMillis = TimeUnit.SECONDS.toMillis(admitTimeoutSeconds);
+    }
+
+    public WaitingTicket enter(Long campaignId, Long userId) {
+        if (soldOutLatch.isSoldOut(campaignId)) { // 재고 소진 이후에는 대기열에 넣지 않는다 (이미 입장했던 유저는 응모 결과)
+            return status(campaignId, userId).orElseThrow();
+        }
+
+        Campaign campaign = campaignCache.get(campaignId); // 존재하지 않는 캠페인은 대기열을 만들기 전에 거절 (CampaignNotFoundException)
+        LocalDateTime now = LocalDateTime.now();
+
+        if (campaign.isBeforeStart(now)) { // 시작 전에는 대기열을 만들지 않는다
+            return WaitingTicket.done(ApplyResult.NOT_STARTED);
+        }
+
+        if (campaign.isEnded(now)) {
+            return status(campaignId, userId).orElse(WaitingTicket.done(ApplyResult.ENDED));
+        }
+
+        CouponIssueRepository.userIdArg(campaign, userId); // BITMAP 캠페인의 범위를 벗어난 userId는 대기열에 넣기 전에 거절 (IllegalArgumentException)
+
+        long rank = waitingRoomRepository.enter(campaignId, userId);
+
+        if (rank < 0) { // 이미 입장해서 응모가 끝난 유저
+            return status(campaignId, userId).orElseThrow();
+        }
+
+        return WaitingTicket.waiting(rank + 1);
+    }
+
+    public Optional<WaitingTicket> status(Long campaignId, Long userId) { // 응모 결과(또는 처리 중) -> 재고 소진 여부 -> 대기 순위 순서로 확인
+        WaitingTicket result = waitingRoomRepository.result(campaignId, userId);
+
+        if (result != null) {
+            return Optional.of(result);
+        }
+
+        if (soldOutLatch.isSoldOut(campaignId)) { // 대기 중이었지만 입장하기 전에 재고가 소진된 유저
+            return Optional.of(WaitingTicket.done(ApplyResult.SOLD_OUT));
+        }
+
+        Long rank = waitingRoomRepository.rank(campaignId, userId);
+
+        return rank == null ? Optional.empty() : Optional.of(WaitingTicket.waiting(rank + 1));
+    }
+
+    /**
+     * 대기열의 앞에서부터 admit-per-tick명을 꺼내서 응모를 처리하고 결과를 저장한다.
+     * 꺼내는 스크립트가 유저를 처리 중으로 표시하므로 결과가 저장되기 전에도 상태 조회는 rank 0으로 응답하고, 재입장해도 다시 대기열에 들어가지 않는다.
+     * 응모 처리 도중 일시적인 예외가 발생한 유저(Redis 장애, 발급 대기 시간 초과)는 원래 순번으로 대기열에 되돌려서 다음 tick에 다시 처리하고,
+     * 다시 시도해도 같은 예외가 발생하는 유저(삭제된 캠페인 등)는 대기열의 앞을 막지 않도록 REJECTED로 결과를 저장한다.
+     * 꺼낸 노드가 중단되어 admit-timeout 안에 결과가 저장되지 않은 유저는 다음 입장 작업이 원래 순번으로 되돌린 뒤 처리한다.
+     */
+    public int admit(Long campaignId) {
+        if (soldOutLatch.isSoldOut(campaignId)) { // 대기열은 지우지만 중단된 노드가 처리하던 유저는 아래에서 마저 처리한다
+            waitingRoomRepository.close(campaignId);
+        }
+
+        long now = System.currentTimeMillis();
+        List<ZSetOperations.TypedTuple<String>> head = waitingRoomRepository.popHead(campaignId, admitPerTick, now, now + admitTimeoutMillis); // 순위 순서
+
+        if (head.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, ApplyResult> results = new HashMap<>(head.size() * 2);
+
+        for (ZSetOperations.TypedTuple<String> user : head) {
+            Long userId = Long.valueOf(user.getValue());
+
+            try {
+                results.put(userId, applyService.apply4(campaignId, userId));
+            } catch (DataAccessException | CouponIssueTimeoutException e) {
+                logger.warn("failed to admit " + userId + " to campaign " + campaignId + ", requeueing : " + e.getMessage());
+                waitingRoomRepository.requeue(campaignId, user);
+            } catch (RuntimeException e) {
+                logger.error("failed to admit " + userId + " to campaign " + campaignId + ", rejecting", e);
+                results.put(userId, ApplyResult.REJECTED);
+            }
+        }
+
+        if (!results.isEmpty()) {
+            waitingRoomRepository.saveResults(campaignId, results, resultTtl);
+        }
+
+        return results.size();
+    }
+
+}
@@ -0,0 +1,13 @@
+-- KEYS[1] : 샤드 카운터 (coupon_count:{campaignId:shard})
+-- ARGV[1] : 샤드에 할당된 쿠폰 개수
+-- 반환값 : 1 = 획득, 0 = 샤드 소진
+
+local count = tonumber(redis.call('GET', KEYS[1]) or '0')
+
+if count >= tonumber(ARGV[1]) then -- 소진된 샤드는 더 이상 증가시키지 않으므로 샤드 카운터의 합은 전체 재고를 넘지 않는다
+    return 0
+end
+
+redis.call('INCR', KEYS[1])
+
+return 1
@@ -0,0 +1,17 @@
+-- KEYS[1] : 대기열 (ZSET, score = 도착 순번), KEYS[2] : 도착 순번 카운터, KEYS[3] : 입장해서 응모가 끝난 유저의 결과 (HASH)
+-- ARGV[1] : userId
+-- 반환값 : 대기열에서의 순위 (0부터 시작), 이미 입장해서 응모 결과가 있는 경우 -1
+
+if redis.call('HEXISTS', KEYS[3], ARGV[1]) == 1 then
+    return -1
+end
+
+local rank = redis.call('ZRANK', KEYS[1], ARGV[1])
+
+if rank then -- 이미 대기 중인 유저는 처음 도착한 순번을 유지 (재시도해도 뒤로 밀리지 않는다)
+    return rank
+end
+
+redis.call('ZADD', KEYS[1], redis.call('INCR', KEYS[2]), ARGV[1])
+
+return redis.call('ZCARD', KEYS[1]) - 1
@@ -0,0 +1,31 @@
+-- KEYS[1] : 쿠폰을 발급받은 유저 SET 또는 BITMAP, KEYS[2] : 발급된 쿠폰 개수
+-- ARGV[1] : userId, ARGV[2] : 발급 가능한 쿠폰의 최대 개수, ARGV[3] : KEYS[1]의 자료구조 (SET / BITMAP)
+-- 반환값 : 1 = 발급(ISSUED), 0 = 중복 응모(DUPLICATE), 2 = 재고 소진(SOLD_OUT)
+
+local bitmap = ARGV[3] == 'BITMAP'
+
+local applied
+if bitmap then
+    applied = redis.call('GETBIT', KEYS[1], ARGV[1]) == 1
+else
+    applied = redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1
+end
+
+if applied then
+    return 0
+end
+
+local count = tonumber(redis.call('GET', KEYS[2]) or '0')
+
+if count >= tonumber(ARGV[2]) then -- 재고가 소진된 이후에는 SET, 카운터 모두 건드리지 않음
+    return 2
+end
+
+if bitmap then
+    redis.call('SETBIT', KEYS[1], ARGV[1], 1)
+else
+    redis.call('SADD', KEYS[1], ARGV[1])
+end
+redis.call('INCR', KEYS[2])
+
+return 1
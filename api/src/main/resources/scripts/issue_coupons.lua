@@ -0,0 +1,40 @@
+-- issue_coupon.lua를 여러 유저에 대해 한번에 실행하는 스크립트 (요청 병합용)
+-- KEYS[1] : 쿠폰을 발급받은 유저 SET 또는 BITMAP, KEYS[2] : 발급된 쿠폰 개수
+-- ARGV[1] : 발급 가능한 쿠폰의 최대 개수, ARGV[2] : KEYS[1]의 자료구조 (SET / BITMAP), ARGV[3..n] : userId
+-- 반환값 : userId 순서대로 1 = 발급(ISSUED), 0 = 중복 응모(DUPLICATE), 2 = 재고 소진(SOLD_OUT)
+
+local limit = tonumber(ARGV[1])
+local bitmap = ARGV[2] == 'BITMAP'
+local count = tonumber(redis.call('GET', KEYS[2]) or '0')
+local issued = 0
+local results = {}
+
+for i = 3, #ARGV do
+    local applied
+    if bitmap then
+        applied = redis.call('GETBIT', KEYS[1], ARGV[i]) == 1
+    else
+        applied = redis.call('SISMEMBER', KEYS[1], ARGV[i]) == 1
+    end
+
+    if applied then -- 같은 batch 안에서 중복된 유저도 SADD 이후에는 여기서 걸러진다
+        results[i - 2] = 0
+    elseif count >= limit then
+        results[i - 2] = 2
+    else
+        if bitmap then
+            redis.call('SETBIT', KEYS[1], ARGV[i], 1)
+        else
+            redis.call('SADD', KEYS[1], ARGV[i])
+        end
+        count = count + 1
+        issued = issued + 1
+        results[i - 2] = 1
+    end
+end
+
+if issued > 0 then
+    redis.call('INCRBY', KEYS[2], issued)
+end
+
+return results
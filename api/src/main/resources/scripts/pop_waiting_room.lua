@@ -0,0 +1,31 @@
+-- KEYS[1] : 대기열 (ZSET, score = 도착 순번), KEYS[2] : 입장한 유저의 응모 결과 (HASH), KEYS[3] : 입장해서 응모를 처리 중인 유저 (ZSET, score = 처리 기한)
+-- ARGV[1] : 꺼낼 유저 수, ARGV[2] : 현재 시각 (epoch ms), ARGV[3] : 이번에 꺼낸 유저의 처리 기한 (epoch ms)
+-- 반환값 : ZPOPMIN과 같은 형식의 [userId, 도착 순번, ...] (이미 응모 결과가 있는 유저는 제외)
+-- 꺼낸 유저는 결과 HASH에 'ADMITTING:도착 순번'으로 표시해서 결과가 저장되기 전에도 상태 조회와 재입장이 처리 중으로 응답받는다
+
+local expired = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', ARGV[2], 'LIMIT', 0, tonumber(ARGV[1]))
+
+for _, user in ipairs(expired) do -- 처리 기한 안에 결과가 저장되지 않은 유저(꺼낸 노드가 중단된 경우)는 원래 순번으로 대기열에 되돌린다
+    local current = redis.call('HGET', KEYS[2], user)
+
+    if current and string.sub(current, 1, 10) == 'ADMITTING:' then
+        redis.call('HDEL', KEYS[2], user)
+        redis.call('ZADD', KEYS[1], string.sub(current, 11), user)
+    end
+
+    redis.call('ZREM', KEYS[3], user)
+end
+
+local head = redis.call('ZPOPMIN', KEYS[1], tonumber(ARGV[1]))
+local admitted = {}
+
+for i = 1, #head, 2 do
+    if redis.call('HEXISTS', KEYS[2], head[i]) == 0 then -- 응모 결과가 이미 있는 유저는 다시 응모하지 않는다 (결과를 덮어쓰지 않는다)
+        redis.call('HSET', KEYS[2], head[i], 'ADMITTING:' .. head[i + 1])
+        redis.call('ZADD', KEYS[3], ARGV[3], head[i])
+        admitted[#admitted + 1] = head[i]
+        admitted[#admitted + 1] = head[i + 1]
+    end
+end
+
+return admitted
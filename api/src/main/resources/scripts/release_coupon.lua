@@ -0,0 +1,17 @@
+-- KEYS[1] : 쿠폰을 발급받은 유저 SET 또는 BITMAP, KEYS[2] : 발급된 쿠폰 개수
+-- ARGV[1] : userId, ARGV[2] : KEYS[1]의 자료구조 (SET / BITMAP)
+-- 발급은 되었지만 coupon_create 토픽으로 송신에 실패한 쿠폰을 되돌린다 (SET에 남아있는 경우에만 감소시키므로 여러번 호출되어도 안전)
+
+local removed
+if ARGV[2] == 'BITMAP' then
+    removed = redis.call('SETBIT', KEYS[1], ARGV[1], 0) == 1
+else
+    removed = redis.call('SREM', KEYS[1], ARGV[1]) == 1
+end
+
+if removed then
+    redis.call('DECR', KEYS[2])
+    return 1
+end
+
+return 0
@@ -0,0 +1,9 @@
+-- KEYS[1] : 잠금 key
+-- ARGV[1] : 잠금을 잡을 때 저장한 토큰
+-- 반환값 : 1 = 해제, 0 = 다른 노드의 잠금이거나 이미 만료됨 (잠금이 만료된 이후 다른 노드가 잡은 잠금을 지우지 않는다)
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+
+return 0
@@ -0,0 +1,16 @@
+-- KEYS[1] : 대기열 (ZSET, score = 도착 순번), KEYS[2] : 입장한 유저의 응모 결과 (HASH), KEYS[3] : 입장해서 응모를 처리 중인 유저 (ZSET)
+-- ARGV[1] : userId, ARGV[2] : 도착 순번
+-- 응모 처리에 실패한 유저의 처리 중 표시를 지우고 원래 순번으로 대기열에 되돌린다 (이미 응모 결과가 저장된 유저는 되돌리지 않는다)
+
+local current = redis.call('HGET', KEYS[2], ARGV[1])
+
+redis.call('ZREM', KEYS[3], ARGV[1])
+
+if current and string.sub(current, 1, 10) ~= 'ADMITTING:' then
+    return 0
+end
+
+redis.call('HDEL', KEYS[2], ARGV[1])
+redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+
+return 1
@@ -0,0 +1,17 @@
+-- KEYS[1] : 입장한 유저의 응모 결과 (HASH), KEYS[2] : 입장해서 응모를 처리 중인 유저 (ZSET)
+-- ARGV[1] : 결과를 보관하는 시간 (초), ARGV[2..n] : userId, 응모 결과 (ApplyResult) 쌍
+-- 처리 중 표시('ADMITTING:순번')이거나 비어있는 경우에만 기록한다 - 이미 저장된 결과(ISSUED 등)는 덮어쓰지 않는다
+
+for i = 2, #ARGV, 2 do
+    local current = redis.call('HGET', KEYS[1], ARGV[i])
+
+    if not current or string.sub(current, 1, 10) == 'ADMITTING:' then
+        redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+    end
+
+    redis.call('ZREM', KEYS[2], ARGV[i])
+end
+
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+
+return 1
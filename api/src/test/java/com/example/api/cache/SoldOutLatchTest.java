@@ -0,0 +1,54 @@
+package com.example.api.cache;
+
+import com.example.api.repository.ShardedStockRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+
+class SoldOutLatchTest {
+
+    private RedisTemplate<String, String> redisTemplate;
+
+    private ShardedStockRepository shardedStockRepository;
+
+    private SoldOutLatch soldOutLatch;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisTemplate = Mockito.mock(RedisTemplate.class);
+        shardedStockRepository = Mockito.mock(ShardedStockRepository.class);
+        soldOutLatch = new SoldOutLatch(redisTemplate, shardedStockRepository);
+    }
+
+    @Test
+    public void 다른노드의RESET을받으면래치와소진된샤드기록을함께비운다() {
+        soldOutLatch.onMessage("SOLD_OUT:1");
+        Assertions.assertThat(soldOutLatch.isSoldOut(1L)).isTrue();
+        BDDMockito.then(shardedStockRepository).shouldHaveNoInteractions();
+
+        soldOutLatch.onMessage("RESET:1");
+
+        Assertions.assertThat(soldOutLatch.isSoldOut(1L)).isFalse();
+        BDDMockito.then(shardedStockRepository).should().reset(1L); // 되돌린 재고를 건너뛰고 SOLD_OUT으로 다시 닫지 않도록
+    }
+
+    @Test
+    public void 이노드에서재고를되돌리면샤드기록을비우고RESET을모아서한번만전파한다() {
+        soldOutLatch.markSoldOut(1L);
+        soldOutLatch.reset(1L);
+        soldOutLatch.reset(1L);
+
+        soldOutLatch.publishResets();
+        soldOutLatch.publishResets();
+
+        Assertions.assertThat(soldOutLatch.isSoldOut(1L)).isFalse();
+        BDDMockito.then(shardedStockRepository).should(Mockito.times(2)).reset(1L);
+        BDDMockito.then(redisTemplate).should().convertAndSend(SoldOutLatch.CHANNEL, "SOLD_OUT:1");
+        BDDMockito.then(redisTemplate).should(Mockito.times(1)).convertAndSend(SoldOutLatch.CHANNEL, "RESET:1");
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.example.api.controller;
+
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.CampaignNotFoundException;
+import com.example.api.domain.CouponIssueTimeoutException;
+import com.example.api.metrics.ApplyMetrics;
+import com.example.api.service.AdmissionLimiter;
+import com.example.api.service.ApplyService;
+import com.example.api.service.WaitingRoomService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ApplyController.class)
+class ApplyControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ApplyService applyService;
+
+    @MockBean
+    private AdmissionLimiter admissionLimiter;
+
+    @MockBean
+    private SoldOutLatch soldOutLatch;
+
+    @MockBean
+    private ApplyMetrics applyMetrics;
+
+    @MockBean
+    private WaitingRoomService waitingRoomService;
+
+    @Test
+    public void 입장가능하면응모결과반환() throws Exception {
+        BDDMockito.given(admissionLimiter.tryAcquire()).willReturn(true);
+        BDDMockito.given(applyService.apply4(1L, 10L)).willReturn(ApplyResult.ISSUED);
+
+        mockMvc.perform(post("/campaigns/1/apply").param("userId", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"ISSUED\""));
+
+        BDDMockito.then(admissionLimiter).should().release();
+    }
+
+    @Test
+    public void 입장제한초과시429반환() throws Exception { // 대기하지 않고 바로 거절되어야 한다
+        BDDMockito.given(admissionLimiter.tryAcquire()).willReturn(false);
+
+        mockMvc.perform(post("/campaigns/1/apply").param("userId", "10"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        BDDMockito.then(applyService).shouldHaveNoInteractions();
+        BDDMockito.then(applyMetrics).should().recordRejected(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    public void 재고소진이후에는바로SOLD_OUT반환() throws Exception {
+        BDDMockito.given(soldOutLatch.isSoldOut(1L)).willReturn(true);
+
+        mockMvc.perform(post("/campaigns/1/apply").param("userId", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"SOLD_OUT\""));
+
+        BDDMockito.then(admissionLimiter).shouldHaveNoInteractions();
+    }
+
+    @Test
+    public void 없는캠페인은404_잘못된userId는400반환() throws Exception {
+        BDDMockito.given(admissionLimiter.tryAcquire()).willReturn(true);
+        BDDMockito.given(applyService.apply4(99L, 10L)).willThrow(new CampaignNotFoundException(99L));
+        BDDMockito.given(applyService.apply4(1L, -1L)).willThrow(new IllegalArgumentException("userId out of bitmap range : -1"));
+
+        mockMvc.perform(post("/campaigns/99/apply").param("userId", "10"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/campaigns/1/apply").param("userId", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 발급이제한시간을넘으면503반환() throws Exception {
+        BDDMockito.given(admissionLimiter.tryAcquire()).willReturn(true);
+        BDDMockito.given(applyService.apply4(1L, 10L)).willThrow(new CouponIssueTimeoutException(1L, null));
+
+        mockMvc.perform(post("/campaigns/1/apply").param("userId", "10"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        BDDMockito.then(admissionLimiter).should().release();
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.example.api.controller;
+
+import com.example.api.service.CouponLookupService;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CouponController.class)
+class CouponControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CouponLookupService couponLookupService;
+
+    @Test
+    public void 쿠폰이있으면200() throws Exception {
+        BDDMockito.given(couponLookupService.hasCoupon(1L, 10L)).willReturn(true);
+
+        mockMvc.perform(get("/campaigns/1/coupons/10"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 쿠폰이없으면404() throws Exception {
+        BDDMockito.given(couponLookupService.hasCoupon(1L, 10L)).willReturn(false);
+
+        mockMvc.perform(get("/campaigns/1/coupons/10"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void 유저의쿠폰목록() throws Exception {
+        BDDMockito.given(couponLookupService.findCampaignIds(10L)).willReturn(List.of(1L, 3L));
+
+        mockMvc.perform(get("/users/10/coupons"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[1,3]", true));
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.api.controller;
+
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.WaitingTicket;
+import com.example.api.service.WaitingRoomService;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(WaitingRoomController.class)
+class WaitingRoomControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WaitingRoomService waitingRoomService;
+
+    @Test
+    public void 대기열에들어가면순위를바로응답() throws Exception {
+        BDDMockito.given(waitingRoomService.enter(1L, 10L)).willReturn(WaitingTicket.waiting(1532L));
+
+        mockMvc.perform(post("/campaigns/1/waiting-room").param("userId", "10"))
+                .andExpect(status().isAccepted())
+                .andExpect(content().json("{\"rank\":1532}", true));
+    }
+
+    @Test
+    public void 입장한유저는응모결과를응답() throws Exception {
+        BDDMockito.given(waitingRoomService.status(1L, 10L)).willReturn(Optional.of(WaitingTicket.done(ApplyResult.ISSUED)));
+
+        mockMvc.perform(get("/campaigns/1/waiting-room/10"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"result\":\"ISSUED\"}", true));
+    }
+
+    @Test
+    public void 대기열에없는유저는404() throws Exception {
+        BDDMockito.given(waitingRoomService.status(1L, 10L)).willReturn(Optional.empty());
+
+        mockMvc.perform(get("/campaigns/1/waiting-room/10"))
+                .andExpect(status().isNotFound());
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.example.api.producer;
+
+import com.example.api.domain.CouponCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+class CouponOutboxTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void 송신하지않은쿠폰은재시작이후에도남아있다() throws IOException {
+        CouponOutbox outbox = open(1024);
+
+        for (long userId = 1; userId <= 5; userId++) {
+            outbox.append(event(1L, userId));
+        }
+
+        outbox.commit(outbox.peek(2).size()); // 2개만 송신
+        outbox.close();
+
+        CouponOutbox reopened = open(1024);
+
+        Assertions.assertThat(reopened.pending()).isEqualTo(3);
+        Assertions.assertThat(reopened.peek(10)).containsExactly(
+                event(1L, 3L),
+                event(1L, 4L),
+                event(1L, 5L)
+        );
+
+        reopened.append(event(2L, 6L)); // 복구된 위치 이후에 이어서 기록
+
+        Assertions.assertThat(reopened.peek(10)).hasSize(4).last().isEqualTo(event(2L, 6L));
+        reopened.close();
+    }
+
+    @Test
+    public void 기록도중중단된레코드는무시하고덮어쓴다() throws IOException {
+        CouponOutbox outbox = open(1024);
+        outbox.append(event(1L, 1L));
+        outbox.append(event(1L, 2L));
+        outbox.close();
+
+        try (Stream<Path> files = Files.list(dir); FileChannel channel = FileChannel.open(files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1).put(0, (byte) 7), CouponOutbox.RECORD_BYTES + 5); // 두번째 레코드의 campaignId 일부만 바뀐 상태
+        }
+
+        CouponOutbox reopened = open(1024);
+
+        Assertions.assertThat(reopened.peek(10)).containsExactly(event(1L, 1L));
+
+        reopened.append(event(1L, 3L));
+
+        Assertions.assertThat(reopened.peek(10)).containsExactly(event(1L, 1L), event(1L, 3L));
+        reopened.close();
+    }
+
+    @Test
+    public void 가득찬세그먼트는다음세그먼트로넘어가고송신이끝나면삭제된다() throws IOException {
+        CouponOutbox outbox = open(CouponOutbox.RECORD_BYTES * 4); // 세그먼트당 4개
+
+        for (long userId = 1; userId <= 10; userId++) {
+            outbox.append(event(1L, userId));
+        }
+
+        Assertions.assertThat(segmentCount()).isEqualTo(3);
+        Assertions.assertThat(outbox.peek(10)).extracting(CouponCreatedEvent::userId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+
+        outbox.commit(9);
+
+        Assertions.assertThat(segmentCount()).isEqualTo(1);
+        Assertions.assertThat(outbox.peek(10)).containsExactly(event(1L, 10L));
+        outbox.close();
+    }
+
+    @Test
+    public void 다른outbox가열고있는디렉터리는열수없다() throws IOException {
+        CouponOutbox outbox = open(1024);
+
+        Assertions.assertThatThrownBy(() -> open(1024)).isInstanceOf(IllegalStateException.class);
+
+        outbox.close();
+
+        CouponOutbox reopened = open(1024); // 닫힌 이후에는 다시 열 수 있다
+        reopened.close();
+    }
+
+    private CouponCreatedEvent event(long campaignId, long userId) {
+        return new CouponCreatedEvent(campaignId, userId, 1_700_000_000_000L + userId);
+    }
+
+    private CouponOutbox open(long segmentBytes) throws IOException {
+        CouponOutbox outbox = new CouponOutbox(true, dir.toString(), segmentBytes, new SimpleMeterRegistry());
+        outbox.open();
+
+        return outbox;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+
+}
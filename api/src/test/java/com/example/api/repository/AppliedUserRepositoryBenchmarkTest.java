@@ -0,0 +1,85 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.Campaign;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Tag("benchmark")
+@SpringBootTest
+class AppliedUserRepositoryBenchmarkTest {
+
+    /**
+     * applied_user를 SET으로 저장하는 경우와 BITMAP으로 저장하는 경우의 메모리 사용량을 비교한다.
+     * 실제 Redis에 100만명을 기록하므로 기본 test에서는 제외된다. (실행 : ./gradlew test -PbenchmarkTests)
+     * 처리량(ops/sec) 비교는 benchmark 모듈의 RepositoryBenchmark(addToSet, addToBitmap)에서 측정한다.
+     */
+
+    private static final int USER_COUNT = 1_000_000;
+
+    private static final Long SET_CAMPAIGN_ID = -1001L; // 다른 캠페인(기본 0, 워밍업 -1)의 key와 겹치지 않는 음수 id
+
+    private static final Long BITMAP_CAMPAIGN_ID = -1002L;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @AfterEach
+    public void 측정에사용한key삭제() {
+        redisTemplate.delete(List.of(
+                CampaignKeys.appliedUser(campaign(SET_CAMPAIGN_ID, AppliedUserStore.SET)),
+                CampaignKeys.appliedUser(campaign(BITMAP_CAMPAIGN_ID, AppliedUserStore.BITMAP))
+        ));
+    }
+
+    @Test
+    public void SET과BITMAP의메모리사용량비교() {
+        Campaign setCampaign = campaign(SET_CAMPAIGN_ID, AppliedUserStore.SET);
+        Campaign bitmapCampaign = campaign(BITMAP_CAMPAIGN_ID, AppliedUserStore.BITMAP);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> { // 100만명을 파이프라인으로 한번에 저장
+            byte[] setKey = CampaignKeys.appliedUser(setCampaign).getBytes(StandardCharsets.UTF_8);
+            byte[] bitmapKey = CampaignKeys.appliedUser(bitmapCampaign).getBytes(StandardCharsets.UTF_8);
+
+            for (long userId = 0; userId < USER_COUNT; userId++) {
+                connection.setCommands().sAdd(setKey, String.valueOf(userId).getBytes(StandardCharsets.UTF_8));
+                connection.stringCommands().setBit(bitmapKey, userId, true);
+            }
+
+            return null;
+        });
+
+        long setBytes = memoryUsage(CampaignKeys.appliedUser(setCampaign));
+        long bitmapBytes = memoryUsage(CampaignKeys.appliedUser(bitmapCampaign));
+
+        System.out.println("SET    : " + setBytes + " bytes (" + (double) setBytes / USER_COUNT + " bytes/user)");
+        System.out.println("BITMAP : " + bitmapBytes + " bytes (" + (double) bitmapBytes / USER_COUNT + " bytes/user)");
+
+        Assertions.assertThat(bitmapBytes).isLessThan(setBytes / 10);
+    }
+
+    private long memoryUsage(String key) { // MEMORY USAGE key
+        Long bytes = redisTemplate.execute((RedisCallback<Long>) connection ->
+                (Long) connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8)));
+
+        return bytes == null ? 0 : bytes;
+    }
+
+    private Campaign campaign(Long id, AppliedUserStore store) { // DB에는 저장하지 않음
+        Campaign campaign = new Campaign((long) USER_COUNT, 1, store, null, null);
+        ReflectionTestUtils.setField(campaign, "id", id);
+
+        return campaign;
+    }
+
+}
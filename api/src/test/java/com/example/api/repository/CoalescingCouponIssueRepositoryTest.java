@@ -0,0 +1,146 @@
+package com.example.api.repository;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class CoalescingCouponIssueRepositoryTest {
+
+    private RedisTemplate<String, String> redisTemplate;
+
+    private final List<List<Object>> calls = new CopyOnWriteArrayList<>(); // 스크립트 호출마다 [keys, ARGV...]
+
+    private CoalescingCouponIssueRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisTemplate = Mockito.mock(RedisTemplate.class);
+        BDDMockito.willAnswer(invocation -> { // 유저마다 ISSUED(1)로 응답
+            Object[] args = (Object[]) invocation.getRawArguments()[2]; // ARGV[1] 재고, ARGV[2] 자료구조, ARGV[3..n] userId
+            List<Object> call = new ArrayList<>();
+            call.add(invocation.getArgument(1));
+            call.addAll(Arrays.asList(args));
+            calls.add(call);
+
+            return Collections.nCopies(args.length - 2, 1L);
+        }).given(redisTemplate).execute(ArgumentMatchers.any(RedisScript.class), ArgumentMatchers.anyList(), ArgumentMatchers.any(Object[].class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (repository != null) {
+            repository.stop();
+        }
+    }
+
+    @Test
+    public void 같은window에들어온요청은캠페인별로한번씩스크립트를호출한다() throws Exception {
+        start(true, 200_000, 256); // window 200ms
+        Campaign first = campaign(1L);
+        Campaign second = campaign(2L);
+
+        List<CompletableFuture<ApplyResult>> results = List.of(
+                repository.issue(first, 10L),
+                repository.issue(second, 30L),
+                repository.issue(first, 20L)
+        );
+
+        for (CompletableFuture<ApplyResult> result : results) {
+            Assertions.assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo(ApplyResult.ISSUED);
+        }
+
+        Assertions.assertThat(calls).containsExactly( // 먼저 들어온 캠페인부터, 캠페인 안에서는 도착 순서대로
+                List.of(List.of(CampaignKeys.appliedUser(first), CampaignKeys.couponCount(1L)), "100", "SET", "10", "20"),
+                List.of(List.of(CampaignKeys.appliedUser(second), CampaignKeys.couponCount(2L)), "100", "SET", "30")
+        );
+    }
+
+    @Test
+    public void max_batch_size가차면window를기다리지않고처리한다() throws Exception {
+        start(true, 60_000_000, 2); // window 1분
+        Campaign campaign = campaign(1L);
+
+        CompletableFuture<ApplyResult> first = repository.issue(campaign, 10L);
+        CompletableFuture<ApplyResult> second = repository.issue(campaign, 20L);
+
+        Assertions.assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(ApplyResult.ISSUED);
+        Assertions.assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(ApplyResult.ISSUED);
+        Assertions.assertThat(calls).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 스크립트가실패하면batch의모든요청이실패한다() {
+        RedisConnectionFailureException failure = new RedisConnectionFailureException("down");
+        BDDMockito.willThrow(failure)
+                .given(redisTemplate).execute(ArgumentMatchers.any(RedisScript.class), ArgumentMatchers.anyList(), ArgumentMatchers.any(Object[].class));
+        start(true, 200_000, 256);
+        Campaign campaign = campaign(1L);
+
+        CompletableFuture<ApplyResult> first = repository.issue(campaign, 10L);
+        CompletableFuture<ApplyResult> second = repository.issue(campaign, 20L);
+
+        for (CompletableFuture<ApplyResult> result : List.of(first, second)) {
+            Assertions.assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCause(failure);
+        }
+    }
+
+    @Test
+    public void 병합스레드가멈추면큐에넣지않고바로실패한다() throws Exception {
+        start(false, 500, 256); // coupon.coalescing.enabled=false
+        Assertions.assertThat(repository.isRunning()).isFalse();
+        Assertions.assertThat(repository.issue(campaign(1L), 10L)).isCompletedExceptionally();
+
+        start(true, 500, 256);
+        Assertions.assertThat(repository.isRunning()).isTrue();
+        repository.stop();
+
+        Assertions.assertThat(repository.isRunning()).isFalse();
+        Assertions.assertThat(repository.issue(campaign(1L), 10L)).isCompletedExceptionally();
+        Assertions.assertThat(calls).isEmpty();
+    }
+
+    @Test
+    public void 비트맵범위를벗어난userId는batch에넣기전에거절한다() {
+        start(true, 500, 256);
+        Campaign campaign = new Campaign(100L, 1, AppliedUserStore.BITMAP, null, null);
+
+        Assertions.assertThatThrownBy(() -> repository.issue(campaign, -1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void start(boolean enabled, long windowMicros, int maxBatchSize) {
+        repository = new CoalescingCouponIssueRepository(redisTemplate, enabled, windowMicros, maxBatchSize, 1000);
+        repository.start();
+    }
+
+    private Campaign campaign(Long id) {
+        Campaign campaign = new Campaign(100L, null, null);
+        ReflectionTestUtils.setField(campaign, "id", id);
+
+        return campaign;
+    }
+
+}
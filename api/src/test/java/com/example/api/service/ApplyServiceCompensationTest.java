@@ -0,0 +1,138 @@
+package com.example.api.service;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.domain.CouponIssueTimeoutException;
+import com.example.api.producer.CouponCreateProducer;
+import com.example.api.producer.CouponOutbox;
+import com.example.api.repository.AppliedUserRepository;
+import com.example.api.repository.CoalescingCouponIssueRepository;
+import com.example.api.repository.CouponCountRepository;
+import com.example.api.repository.CouponIssueRepository;
+import com.example.api.repository.CouponRepository;
+import com.example.api.repository.ShardedStockRepository;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Redis에서 발급된 쿠폰을 응답하지 못하거나 송신하지 못한 경우 발급을 되돌리는 경로의 테스트 (Redis, Kafka 없이 mock으로 실행)
+ */
+class ApplyServiceCompensationTest {
+
+    private CouponIssueRepository couponIssueRepository;
+
+    private CoalescingCouponIssueRepository coalescingCouponIssueRepository;
+
+    private CouponCreateProducer couponCreateProducer;
+
+    private SoldOutLatch soldOutLatch;
+
+    private Campaign campaign;
+
+    private ApplyService applyService;
+
+    @BeforeEach
+    public void setUp() {
+        couponIssueRepository = Mockito.mock(CouponIssueRepository.class);
+        coalescingCouponIssueRepository = Mockito.mock(CoalescingCouponIssueRepository.class);
+        couponCreateProducer = Mockito.mock(CouponCreateProducer.class);
+        soldOutLatch = Mockito.mock(SoldOutLatch.class);
+        CampaignCache campaignCache = Mockito.mock(CampaignCache.class);
+
+        campaign = new Campaign(100L, null, null);
+        ReflectionTestUtils.setField(campaign, "id", 1L);
+        BDDMockito.given(campaignCache.get(1L)).willReturn(campaign);
+
+        applyService = new ApplyService(Mockito.mock(CouponRepository.class), Mockito.mock(CouponCountRepository.class), couponCreateProducer,
+                Mockito.mock(AppliedUserRepository.class), couponIssueRepository, soldOutLatch, campaignCache, Mockito.mock(ShardedStockRepository.class),
+                coalescingCouponIssueRepository, Mockito.mock(CouponOutbox.class));
+    }
+
+    @Test
+    public void 병합된발급이제한시간이후에발급되면발급을되돌리고래치를연다() {
+        CompletableFuture<ApplyResult> pending = new CompletableFuture<>();
+        givenCoalesced(pending);
+        BDDMockito.given(couponIssueRepository.release(campaign, 10L)).willReturn(true);
+
+        Assertions.assertThatThrownBy(() -> applyService.apply4(1L, 10L)).isInstanceOf(CouponIssueTimeoutException.class);
+        pending.complete(ApplyResult.ISSUED); // 실패로 응답한 이후에 병합 스레드가 발급
+
+        BDDMockito.then(couponIssueRepository).should(Mockito.timeout(1000)).release(campaign, 10L);
+        BDDMockito.then(soldOutLatch).should(Mockito.timeout(1000)).reset(1L);
+        BDDMockito.then(couponCreateProducer).shouldHaveNoInteractions(); // 유저는 실패로 응답받았으므로 송신하지 않는다
+    }
+
+    @Test
+    public void 제한시간이후에발급되지않은결과는되돌리지않는다() {
+        CompletableFuture<ApplyResult> pending = new CompletableFuture<>();
+        givenCoalesced(pending);
+
+        Assertions.assertThatThrownBy(() -> applyService.apply4(1L, 10L)).isInstanceOf(CouponIssueTimeoutException.class);
+        pending.complete(ApplyResult.DUPLICATE);
+
+        BDDMockito.then(couponIssueRepository).should(Mockito.after(200).never()).release(campaign, 10L);
+        BDDMockito.then(soldOutLatch).should(Mockito.never()).reset(1L);
+    }
+
+    @Test
+    public void 송신에실패하면발급을되돌리고재고가생긴경우에만래치를연다() {
+        BDDMockito.given(couponIssueRepository.issue(campaign, 10L)).willReturn(ApplyResult.ISSUED);
+        BDDMockito.given(couponIssueRepository.issue(campaign, 20L)).willReturn(ApplyResult.ISSUED);
+        BDDMockito.given(couponCreateProducer.create(ArgumentMatchers.any(CouponCreatedEvent.class)))
+                .willReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+        BDDMockito.given(couponIssueRepository.release(campaign, 10L)).willReturn(true);
+        BDDMockito.given(couponIssueRepository.release(campaign, 20L)).willReturn(false); // 이미 되돌려진 발급
+
+        Assertions.assertThat(applyService.apply4(1L, 10L)).isEqualTo(ApplyResult.ISSUED);
+        BDDMockito.then(couponIssueRepository).should(Mockito.timeout(1000)).release(campaign, 10L);
+        BDDMockito.then(soldOutLatch).should(Mockito.timeout(1000)).reset(1L);
+
+        Assertions.assertThat(applyService.apply4(1L, 20L)).isEqualTo(ApplyResult.ISSUED);
+        BDDMockito.then(couponIssueRepository).should(Mockito.timeout(1000)).release(campaign, 20L);
+        BDDMockito.then(soldOutLatch).should(Mockito.after(200).times(1)).reset(1L); // 재고가 생기지 않았으면 래치를 열지 않는다
+    }
+
+    @Test
+    public void 송신호출자체가실패해도발급을되돌린다() {
+        BDDMockito.given(couponIssueRepository.issue(campaign, 10L)).willReturn(ApplyResult.ISSUED);
+        BDDMockito.given(couponCreateProducer.create(ArgumentMatchers.any(CouponCreatedEvent.class))).willThrow(new TimeoutException("metadata"));
+        BDDMockito.given(couponIssueRepository.release(campaign, 10L)).willReturn(true);
+
+        applyService.apply4(1L, 10L);
+
+        BDDMockito.then(couponIssueRepository).should().release(campaign, 10L);
+        BDDMockito.then(soldOutLatch).should().reset(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 송신에성공하면발급을되돌리지않는다() {
+        BDDMockito.given(couponIssueRepository.issue(campaign, 10L)).willReturn(ApplyResult.ISSUED);
+        BDDMockito.given(couponCreateProducer.create(ArgumentMatchers.any(CouponCreatedEvent.class)))
+                .willReturn(CompletableFuture.completedFuture(Mockito.mock(SendResult.class)));
+
+        applyService.apply4(1L, 10L);
+
+        BDDMockito.then(couponIssueRepository).should(Mockito.after(200).never()).release(campaign, 10L);
+        BDDMockito.then(soldOutLatch).should(Mockito.never()).reset(1L);
+    }
+
+    private void givenCoalesced(CompletableFuture<ApplyResult> pending) {
+        BDDMockito.given(coalescingCouponIssueRepository.isRunning()).willReturn(true);
+        BDDMockito.given(coalescingCouponIssueRepository.getTimeoutMillis()).willReturn(10L);
+        BDDMockito.given(coalescingCouponIssueRepository.issue(campaign, 10L)).willReturn(pending);
+    }
+
+}
@@ -1,14 +1,24 @@
 package com.example.api.service;
 
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.repository.CampaignRepository;
+import com.example.api.repository.CouponCountRepository;
 import com.example.api.repository.CouponRepository;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SpringBootTest
 class ApplyServiceTest {
@@ -20,7 +30,7 @@ class ApplyServiceTest {
      * Redis 설정을 하지 않아도 바로 Redis를 사용할 수 있다.
      *
      * docker exec -it (redis의 컨테이너 id) redis-cli
-     * incr coupon_count
+     * incr coupon_count:{0}
      *
      * 아래 test를 수행하기 전에
      * flushall 명령어 수행 필요
@@ -64,6 +74,20 @@ class ApplyServiceTest {
     @Autowired
     private CouponRepository couponRepository;
 
+    @Autowired
+    private CouponCountRepository couponCountRepository;
+
+    @Autowired
+    private SoldOutLatch soldOutLatch;
+
+    @Autowired
+    private CampaignRepository campaignRepository;
+
+    @BeforeEach
+    public void setUp() { // 이전 테스트에서 재고가 소진되어 닫힌 로컬 래치를 다시 연다 (redis의 flushall은 여전히 필요)
+        soldOutLatch.reset(Campaign.DEFAULT_ID);
+    }
+
     @Test
     public void 한번만응모() { // success
         applyService.apply1(1L);
@@ -155,4 +179,97 @@ class ApplyServiceTest {
         Assertions.assertThat(count).isEqualTo(1); // ApplyService에서 DB에 저장될 수 있는 쿠폰의 최대 개수를 100개로 설정해놓았음
     }
 
+    /**
+     * 실행 전 redis를 cmd에서 접속하고 flushall 명령어 수행 필요
+     */
+    @Test
+    public void 동시에여러명이응모_lua스크립트_kafka() throws InterruptedException { // 유저당 2번씩 응모해도 쿠폰은 100개만 발급되고 재고 소진 이후 coupon_count는 증가하지 않아야 한다.
+        int threadCount = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        Map<ApplyResult, AtomicInteger> results = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            long userId = i / 2; // 같은 유저가 두번씩 응모
+            executorService.submit(() -> {
+                try {
+                    ApplyResult result = applyService.apply4(userId);
+                    results.computeIfAbsent(result, key -> new AtomicInteger()).incrementAndGet();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+
+        Thread.sleep(10000);
+
+        long count = couponRepository.count();
+        Assertions.assertThat(count).isEqualTo(100);
+        Assertions.assertThat(results.get(ApplyResult.ISSUED)).hasValue(100);
+        Assertions.assertThat(couponCountRepository.increment(Campaign.DEFAULT_ID)).isEqualTo(101); // 재고 소진 이후에는 스크립트가 카운터를 증가시키지 않음
+    }
+
+    /**
+     * 실행 전 redis를 cmd에서 접속하고 flushall 명령어 수행 필요
+     */
+    @Test
+    public void 여러캠페인에동시에응모_kafka() throws InterruptedException { // 캠페인마다 Redis key가 분리되므로 각 캠페인의 재고만큼만 발급되어야 한다.
+        Campaign first = campaignRepository.save(new Campaign(100L, LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+        Campaign second = campaignRepository.save(new Campaign(50L, LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+
+        int threadCount = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            long userId = i;
+            Long campaignId = i % 2 == 0 ? first.getId() : second.getId();
+            executorService.submit(() -> {
+                try {
+                    applyService.apply4(campaignId, userId);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+
+        Thread.sleep(10000);
+
+        Assertions.assertThat(couponRepository.countByCampaignId(first.getId())).isEqualTo(100);
+        Assertions.assertThat(couponRepository.countByCampaignId(second.getId())).isEqualTo(50);
+    }
+
+    /**
+     * 실행 전 redis를 cmd에서 접속하고 flushall 명령어 수행 필요
+     */
+    @Test
+    public void 재고샤딩캠페인에동시에응모_kafka() throws InterruptedException { // 재고를 8개의 샤드로 나누어도 전체 재고(100개)보다 많이 발급되지 않아야 한다.
+        Campaign campaign = campaignRepository.save(new Campaign(100L, 8, LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+
+        int threadCount = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            long userId = i;
+            executorService.submit(() -> {
+                try {
+                    applyService.apply4(campaign.getId(), userId);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+
+        Thread.sleep(10000);
+
+        Assertions.assertThat(couponRepository.countByCampaignId(campaign.getId())).isEqualTo(100);
+    }
+
 }
\ No newline at end of file
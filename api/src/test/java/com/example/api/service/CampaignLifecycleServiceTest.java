@@ -0,0 +1,139 @@
+package com.example.api.service;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.Campaign;
+import com.example.api.repository.CampaignLifecycleRepository;
+import com.example.api.repository.CampaignRepository;
+import com.example.api.repository.CouponArchiveRepository;
+import com.example.api.repository.CouponRepository;
+import com.example.api.repository.ShardedStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+class CampaignLifecycleServiceTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    private CampaignRepository campaignRepository;
+
+    private CampaignLifecycleRepository campaignLifecycleRepository;
+
+    private CouponArchiveRepository couponArchiveRepository;
+
+    private CouponRepository couponRepository;
+
+    private CampaignCache campaignCache;
+
+    private SoldOutLatch soldOutLatch;
+
+    private CampaignLifecycleService campaignLifecycleService;
+
+    @BeforeEach
+    public void setUp() {
+        campaignRepository = Mockito.mock(CampaignRepository.class);
+        campaignLifecycleRepository = Mockito.mock(CampaignLifecycleRepository.class);
+        couponArchiveRepository = Mockito.mock(CouponArchiveRepository.class);
+        couponRepository = Mockito.mock(CouponRepository.class);
+        campaignCache = Mockito.mock(CampaignCache.class);
+        soldOutLatch = Mockito.mock(SoldOutLatch.class);
+        campaignLifecycleService = new CampaignLifecycleService(campaignRepository, campaignLifecycleRepository, couponArchiveRepository, couponRepository,
+                campaignCache, soldOutLatch, Mockito.mock(ShardedStockRepository.class), 300, 300, 300, 2);
+    }
+
+    @Test
+    public void 시작전캠페인은한번만미리준비한다() {
+        Campaign campaign = campaign(now.plusMinutes(3), now.plusHours(1)); // preload-lead 5분 이내
+
+        campaignLifecycleService.advance(campaign, now);
+        campaignLifecycleService.advance(campaign, now.plusSeconds(1));
+
+        BDDMockito.then(campaignLifecycleRepository).should(Mockito.times(1)).preload(campaign);
+        BDDMockito.then(campaignCache).should(Mockito.times(1)).put(campaign);
+    }
+
+    @Test
+    public void 아직준비할시간이아니면건드리지않는다() {
+        campaignLifecycleService.advance(campaign(now.plusMinutes(10), now.plusHours(1)), now);
+
+        BDDMockito.then(campaignLifecycleRepository).shouldHaveNoInteractions();
+        BDDMockito.then(campaignCache).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 종료된캠페인은발급기록을아카이브하고키를지운다() {
+        Campaign campaign = campaign(now.minusHours(1), now.minusMinutes(10)); // archive-delay 5분 경과
+        BDDMockito.given(campaignLifecycleRepository.tryLock(1L, Duration.ofSeconds(300))).willReturn("token");
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<List<Long>> chunkConsumer = invocation.getArgument(2, Consumer.class);
+            chunkConsumer.accept(List.of(1L, 2L));
+            chunkConsumer.accept(List.of(3L));
+            return null;
+        }).given(campaignLifecycleRepository).scanIssuedUsers(ArgumentMatchers.eq(campaign), ArgumentMatchers.eq(2), ArgumentMatchers.any());
+        BDDMockito.given(couponRepository.countByCampaignId(1L)).willReturn(3L);
+
+        campaignLifecycleService.advance(campaign, now);
+
+        BDDMockito.then(couponArchiveRepository).should().insertAll(1L, List.of(1L, 2L));
+        BDDMockito.then(couponArchiveRepository).should().insertAll(1L, List.of(3L));
+        BDDMockito.then(campaignLifecycleRepository).should().expire(campaign);
+        BDDMockito.then(campaignRepository).should().markArchived(1L, 3L, now);
+        BDDMockito.then(campaignLifecycleRepository).should().unlock(1L, "token");
+        BDDMockito.then(campaignCache).should().evict(1L);
+        BDDMockito.then(soldOutLatch).should().publishClear(1L); // 다른 노드도 로컬 상태를 정리하도록
+    }
+
+    @Test
+    public void apply1에서3으로응모받은캠페인은발급기록을아카이브하지않는다() { // applied_user에 발급받지 못한 유저도 남아있다
+        Campaign campaign = campaign(now.minusHours(1), now.minusMinutes(10));
+        BDDMockito.given(campaignLifecycleRepository.tryLock(1L, Duration.ofSeconds(300))).willReturn("token");
+        BDDMockito.given(campaignLifecycleRepository.isLegacy(campaign)).willReturn(true);
+        BDDMockito.given(couponRepository.countByCampaignId(1L)).willReturn(5L);
+
+        campaignLifecycleService.advance(campaign, now);
+
+        BDDMockito.then(campaignLifecycleRepository).should(Mockito.never()).scanIssuedUsers(ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+        BDDMockito.then(couponArchiveRepository).shouldHaveNoInteractions();
+        BDDMockito.then(campaignLifecycleRepository).should().expire(campaign);
+        BDDMockito.then(campaignRepository).should().markArchived(1L, 5L, now);
+    }
+
+    @Test
+    public void 다른노드의정리메세지를받으면로컬상태를정리한다() {
+        campaignLifecycleService.onMessage("SOLD_OUT:1"); // 래치 메세지는 무시
+        campaignLifecycleService.onMessage("CLEAR:1");
+
+        BDDMockito.then(campaignCache).should(Mockito.times(1)).evict(1L);
+        BDDMockito.then(soldOutLatch).should().forget(1L);
+    }
+
+    @Test
+    public void 다른노드가아카이브중이면로컬상태만정리한다() {
+        Campaign campaign = campaign(now.minusHours(1), now.minusMinutes(10));
+        BDDMockito.given(campaignLifecycleRepository.tryLock(1L, Duration.ofSeconds(300))).willReturn(null);
+
+        campaignLifecycleService.advance(campaign, now);
+
+        BDDMockito.then(campaignCache).should().evict(1L);
+        BDDMockito.then(couponArchiveRepository).shouldHaveNoInteractions();
+        BDDMockito.then(campaignRepository).shouldHaveNoInteractions();
+    }
+
+    private Campaign campaign(LocalDateTime startAt, LocalDateTime endAt) {
+        Campaign campaign = new Campaign(100L, startAt, endAt);
+        ReflectionTestUtils.setField(campaign, "id", 1L);
+
+        return campaign;
+    }
+
+}
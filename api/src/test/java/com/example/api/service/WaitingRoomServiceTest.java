@@ -0,0 +1,71 @@
+package com.example.api.service;
+
+import com.example.api.cache.CampaignCache;
+import com.example.api.cache.SoldOutLatch;
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.domain.CampaignNotFoundException;
+import com.example.api.repository.WaitingRoomRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+class WaitingRoomServiceTest {
+
+    private WaitingRoomRepository waitingRoomRepository;
+
+    private ApplyService applyService;
+
+    private CampaignCache campaignCache;
+
+    private WaitingRoomService waitingRoomService;
+
+    @BeforeEach
+    public void setUp() {
+        waitingRoomRepository = Mockito.mock(WaitingRoomRepository.class);
+        applyService = Mockito.mock(ApplyService.class);
+        campaignCache = Mockito.mock(CampaignCache.class);
+        waitingRoomService = new WaitingRoomService(waitingRoomRepository, applyService, campaignCache, Mockito.mock(SoldOutLatch.class), 500, 86400, 30);
+    }
+
+    @Test
+    public void 비트맵범위를벗어난userId는대기열에넣지않는다() {
+        LocalDateTime now = LocalDateTime.now();
+        BDDMockito.given(campaignCache.get(1L)).willReturn(new Campaign(100L, 1, AppliedUserStore.BITMAP, now.minusHours(1), now.plusHours(1)));
+
+        Assertions.assertThatThrownBy(() -> waitingRoomService.enter(1L, -5L)).isInstanceOf(IllegalArgumentException.class);
+
+        BDDMockito.then(waitingRoomRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    public void 일시적인예외는대기열에되돌리고_다시시도해도실패하는응모는결과로저장한다() {
+        ZSetOperations.TypedTuple<String> issued = ZSetOperations.TypedTuple.of("1", 1.0);
+        ZSetOperations.TypedTuple<String> redisDown = ZSetOperations.TypedTuple.of("2", 2.0);
+        ZSetOperations.TypedTuple<String> notFound = ZSetOperations.TypedTuple.of("3", 3.0);
+        BDDMockito.given(waitingRoomRepository.popHead(ArgumentMatchers.eq(1L), ArgumentMatchers.eq(500), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
+                .willReturn(List.of(issued, redisDown, notFound));
+        BDDMockito.given(applyService.apply4(1L, 1L)).willReturn(ApplyResult.ISSUED);
+        BDDMockito.given(applyService.apply4(1L, 2L)).willThrow(new RedisConnectionFailureException("down"));
+        BDDMockito.given(applyService.apply4(1L, 3L)).willThrow(new CampaignNotFoundException(1L));
+
+        int admitted = waitingRoomService.admit(1L);
+
+        Assertions.assertThat(admitted).isEqualTo(2);
+        BDDMockito.then(waitingRoomRepository).should().requeue(1L, redisDown);
+        BDDMockito.then(waitingRoomRepository).should(Mockito.never()).requeue(1L, notFound); // 다음 tick에 다시 대기열의 앞을 막지 않는다
+        BDDMockito.then(waitingRoomRepository).should().saveResults(1L, Map.of(1L, ApplyResult.ISSUED, 3L, ApplyResult.REJECTED), Duration.ofSeconds(86400));
+    }
+
+}
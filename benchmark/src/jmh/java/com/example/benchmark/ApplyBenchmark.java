@@ -0,0 +1,82 @@
+package com.example.benchmark;
+
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.repository.CampaignRepository;
+import com.example.api.service.ApplyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ApplyService.apply1 ~ apply4의 처리량(ops/ms)과 지연시간 분포(SampleTime - p99, p99.9)를 측정한다.
+ * 실행 : ./gradlew jmh -PjmhIncludes=ApplyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(32)
+public class ApplyBenchmark {
+
+    private final AtomicLong userIds = new AtomicLong();
+
+    private BenchmarkBackends backends;
+
+    private ApplyService applyService;
+
+    private Long soldOutCampaignId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        backends = BenchmarkBackends.start();
+        applyService = backends.getBean(ApplyService.class);
+        soldOutCampaignId = backends.getBean(CampaignRepository.class).save(new Campaign(0L, null, null)).getId(); // 재고가 없는 캠페인
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        backends.close();
+    }
+
+    @Benchmark
+    public void apply1() { // INCR + MySQL(H2) insert
+        applyService.apply1(userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    public void apply2() { // INCR + Kafka 송신
+        applyService.apply2(userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    public void apply3() { // SADD + INCR + Kafka 송신
+        applyService.apply3(userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    public ApplyResult apply4() { // Lua 스크립트 한번 + Kafka 송신
+        return applyService.apply4(userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    public ApplyResult apply4Duplicate() { // 이미 응모한 유저 - Lua 스크립트만 실행
+        return applyService.apply4(0L);
+    }
+
+    @Benchmark
+    public ApplyResult apply4SoldOut() { // 재고 소진 이후 - 로컬 래치에서 바로 반환
+        return applyService.apply4(soldOutCampaignId, userIds.incrementAndGet());
+    }
+
+}
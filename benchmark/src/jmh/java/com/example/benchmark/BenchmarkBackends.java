@@ -0,0 +1,87 @@
+package com.example.benchmark;
+
+import com.example.api.ApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 인프로세스 백엔드 (임베디드 Redis + 임베디드 Kafka + H2(MySQL 모드)) 위에 api 애플리케이션 컨텍스트를 띄운다.
+ * 외부 Redis/Kafka/MySQL 없이 실행되므로 매 이벤트 전에 같은 조건으로 성능 저하 여부를 확인할 수 있다.
+ * 절대값은 운영 환경과 다르므로 이전 결과와의 상대 비교에 사용한다.
+ */
+public class BenchmarkBackends implements AutoCloseable {
+
+    private final RedisServer redisServer;
+
+    private final EmbeddedKafkaBroker kafkaBroker;
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkBackends(RedisServer redisServer, EmbeddedKafkaBroker kafkaBroker, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.kafkaBroker = kafkaBroker;
+        this.context = context;
+    }
+
+    public static BenchmarkBackends start() throws IOException {
+        int redisPort = freePort();
+        RedisServer redisServer = new RedisServer(redisPort);
+        redisServer.start();
+
+        EmbeddedKafkaBroker kafkaBroker = new EmbeddedKafkaKraftBroker(1, 3, "coupon_create");
+        kafkaBroker.afterPropertiesSet();
+
+        List<String> args = new ArrayList<>(); // application.yml보다 우선하도록 커맨드라인 인자로 전달
+        args.add("--spring.data.redis.port=" + redisPort);
+        args.add("--spring.kafka.bootstrap-servers=" + kafkaBroker.getBrokersAsString());
+        args.add("--spring.datasource.url=" + h2Url("apply"));
+        args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        args.add("--spring.datasource.username=sa");
+        args.add("--spring.datasource.password=");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--coupon.default-stock=" + Long.MAX_VALUE); // 측정 중에 재고가 소진되지 않도록
+        args.add("--coupon.outbox.dir=" + Files.createTempDirectory("coupon-outbox")); // 이전 실행에서 남은 outbox를 송신하지 않도록
+        args.add("--logging.level.root=WARN");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+
+        return new BenchmarkBackends(redisServer, kafkaBroker, context);
+    }
+
+    public static String h2Url(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        kafkaBroker.destroy();
+        redisServer.stop();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
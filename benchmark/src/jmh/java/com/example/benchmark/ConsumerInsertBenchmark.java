@@ -0,0 +1,75 @@
+package com.example.benchmark;
+
+import com.example.api.domain.Coupon;
+import com.example.api.repository.CouponBatchRepository;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * consumer 모듈의 쿠폰 저장 경로(CouponBatchRepository)를 batch 크기별로 측정한다. (H2 MySQL 모드)
+ * batch 하나를 저장하는 단위로 측정하므로 쿠폰 한개당 비용은 결과를 batchSize로 나누어 비교한다.
+ * 인메모리 H2에는 네트워크 왕복이 없으므로 MySQL에서의 batch 효과는 여기서 측정되는 값보다 크다. (H2는 동시 upsert가 불안정하므로 단일 스레드로 측정)
+ * 실행 : ./gradlew jmh -PjmhIncludes=ConsumerInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+public class ConsumerInsertBenchmark {
+
+    @Param({"1", "100", "500"})
+    private int batchSize;
+
+    private final AtomicLong userIds = new AtomicLong();
+
+    private CouponBatchRepository couponBatchRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(BenchmarkBackends.h2Url("consumer"));
+        dataSource.setUser("sa");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists coupon (id bigint auto_increment primary key, campaign_id bigint, user_id bigint, "
+                + "constraint uk_coupon_campaign_user unique (campaign_id, user_id))");
+
+        couponBatchRepository = new CouponBatchRepository(jdbcTemplate);
+    }
+
+    @Benchmark
+    public void insertAll() { // batch 하나를 한번의 JDBC batch로 저장
+        couponBatchRepository.insertAll(nextBatch());
+    }
+
+    @Benchmark
+    public void insertOneByOne() { // batch 하나를 한건씩 저장 (batch listener 도입 이전)
+        nextBatch().forEach(couponBatchRepository::insert);
+    }
+
+    private List<Coupon> nextBatch() {
+        List<Coupon> coupons = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < batchSize; i++) {
+            coupons.add(new Coupon(1L, userIds.incrementAndGet()));
+        }
+
+        return coupons;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.example.benchmark;
+
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.producer.CouponCreateProducer;
+import com.example.api.producer.CouponOutbox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * coupon_create 토픽 송신의 처리량과 지연시간 분포를 측정한다. (send 호출 자체 / 브로커 응답까지 / outbox 기록)
+ * 실행 : ./gradlew jmh -PjmhIncludes=ProducerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(32)
+public class ProducerBenchmark {
+
+    private final AtomicLong userIds = new AtomicLong();
+
+    private BenchmarkBackends backends;
+
+    private CouponCreateProducer couponCreateProducer;
+
+    private CouponOutbox couponOutbox;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        backends = BenchmarkBackends.start();
+        couponCreateProducer = backends.getBean(CouponCreateProducer.class);
+        couponOutbox = backends.getBean(CouponOutbox.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        backends.close();
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, CouponCreatedEvent>> send() { // 응모 스레드가 실제로 기다리는 시간 (record를 버퍼에 넣을 때까지)
+        return couponCreateProducer.create(1L, userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    public SendResult<String, CouponCreatedEvent> sendAndAwait() { // acks=all 응답까지
+        return couponCreateProducer.create(1L, userIds.incrementAndGet()).join();
+    }
+
+    @Benchmark
+    public void appendToOutbox() { // outbox가 켜진 경우 응모 스레드가 기다리는 시간 (송신은 relay 스레드가 처리)
+        couponOutbox.append(CouponCreatedEvent.issued(1L, userIds.incrementAndGet()));
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.example.benchmark;
+
+import com.example.api.domain.AppliedUserStore;
+import com.example.api.domain.ApplyResult;
+import com.example.api.domain.Campaign;
+import com.example.api.repository.AppliedUserRepository;
+import com.example.api.repository.CampaignRepository;
+import com.example.api.repository.CouponCountRepository;
+import com.example.api.repository.CouponIssueRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis 레포지토리 호출 하나하나의 처리량과 지연시간 분포를 측정한다.
+ * addToSet과 addToBitmap은 applied_user를 SET/BITMAP으로 저장하는 경우의 처리량 비교에 사용한다. (메모리 비교는 api의 AppliedUserRepositoryBenchmarkTest)
+ * 실행 : ./gradlew jmh -PjmhIncludes=RepositoryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(32)
+public class RepositoryBenchmark {
+
+    private final AtomicLong userIds = new AtomicLong();
+
+    private BenchmarkBackends backends;
+
+    private CouponCountRepository couponCountRepository;
+
+    private AppliedUserRepository appliedUserRepository;
+
+    private CouponIssueRepository couponIssueRepository;
+
+    private Campaign setCampaign;
+
+    private Campaign bitmapCampaign;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        backends = BenchmarkBackends.start();
+        couponCountRepository = backends.getBean(CouponCountRepository.class);
+        appliedUserRepository = backends.getBean(AppliedUserRepository.class);
+        couponIssueRepository = backends.getBean(CouponIssueRepository.class);
+
+        CampaignRepository campaignRepository = backends.getBean(CampaignRepository.class);
+        setCampaign = campaignRepository.save(new Campaign(Long.MAX_VALUE, 1, AppliedUserStore.SET, null, null));
+        bitmapCampaign = campaignRepository.save(new Campaign(Long.MAX_VALUE, 1, AppliedUserStore.BITMAP, null, null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        backends.close();
+    }
+
+    @Benchmark
+    public Long increment() { // INCR
+        return couponCountRepository.increment(setCampaign.getId());
+    }
+
+    @Benchmark
+    public Long addToSet() { // SADD
+        return appliedUserRepository.add(setCampaign, userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    public Long addToBitmap() { // SETBIT
+        return appliedUserRepository.add(bitmapCampaign, userIds.incrementAndGet() & 0xFFFFFFFFL);
+    }
+
+    @Benchmark
+    public ApplyResult issue() { // EVALSHA issue_coupon.lua
+        return couponIssueRepository.issue(setCampaign, userIds.incrementAndGet());
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.example.api.cache;
+
+import com.example.api.domain.Coupon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 저장이 끝난 쿠폰을 Redis의 issued_coupon:{campaignId} (SET)에 기록한다.
+ * api의 쿠폰 조회(CouponLookupService)가 MySQL 대신 먼저 확인하는 2차 캐시이므로, 기록에 실패해도 저장(offset 커밋)은 실패시키지 않는다.
+ */
+@Component
+public class IssuedCouponCache {
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final long ttlSeconds;
+
+    private final Logger logger = LoggerFactory.getLogger(IssuedCouponCache.class);
+
+    public IssuedCouponCache(RedisTemplate<String, String> redisTemplate, @Value("${coupon.lookup.redis-ttl-seconds:604800}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public void addAll(List<Coupon> coupons) { // 캠페인별로 SADD 한번 + EXPIRE - batch 전체를 파이프라인 한번으로 전송
+        Map<Long, List<Coupon>> byCampaign = coupons.stream().collect(Collectors.groupingBy(Coupon::getCampaignId));
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                byCampaign.forEach((campaignId, campaignCoupons) -> {
+                    byte[] key = ("issued_coupon:{" + campaignId + "}").getBytes(StandardCharsets.UTF_8); // api 모듈의 CampaignKeys.issuedCoupon
+                    connection.setCommands().sAdd(key, campaignCoupons.stream().map(coupon -> coupon.getUserId().toString().getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new));
+                    connection.keyCommands().expire(key, ttlSeconds); // 이벤트 이후 조회가 끝나면 정리 (쿠폰이 추가될 때마다 연장)
+                });
+
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("failed to cache " + coupons.size() + " issued coupons in redis", e);
+        }
+    }
+
+}
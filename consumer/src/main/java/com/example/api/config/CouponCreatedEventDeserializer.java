@@ -0,0 +1,22 @@
+package com.example.api.config;
+
+import com.example.api.domain.CouponCreatedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class CouponCreatedEventDeserializer implements Deserializer<CouponCreatedEvent> { // 버전이 있는 고정 길이 바이너리 / 이전 형식(8 bytes userId) -> CouponCreatedEvent
+
+    @Override
+    public CouponCreatedEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return CouponCreatedEvent.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.example.api.config;
+
+import com.example.api.domain.CouponCreatedEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class CouponCreatedEventSerializer implements Serializer<CouponCreatedEvent> { // 재시도 토픽 송신 / FailedEvent 재발행용
+
+    @Override
+    public byte[] serialize(String topic, CouponCreatedEvent event) {
+        return event == null ? null : event.encode();
+    }
+
+}
@@ -1,14 +1,20 @@
 package com.example.api.config;
 
+import com.example.api.domain.CouponCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.common.serialization.LongDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.converter.StringJsonMessageConverter;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,26 +22,85 @@ import java.util.Map;
 @Configuration
 public class KafkaConsumerConfig {
 
+    private final String bootstrapServers;
+
+    private final int maxPollRecords;
+
+    private final int concurrency;
+
+    private final boolean warmUpEnabled;
+
+    private final long backOffInitialMillis;
+
+    private final long backOffMaxMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConsumerConfig(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers, @Value("${coupon.consumer.max-poll-records:500}") int maxPollRecords, @Value("${coupon.consumer.concurrency:1}") int concurrency, @Value("${coupon.warm-up.enabled:false}") boolean warmUpEnabled, @Value("${coupon.consumer.back-off-initial-ms:1000}") long backOffInitialMillis, @Value("${coupon.consumer.back-off-max-ms:30000}") long backOffMaxMillis, MeterRegistry meterRegistry) {
+        this.bootstrapServers = bootstrapServers;
+        this.maxPollRecords = maxPollRecords;
+        this.concurrency = concurrency;
+        this.warmUpEnabled = warmUpEnabled;
+        this.backOffInitialMillis = backOffInitialMillis;
+        this.backOffMaxMillis = backOffMaxMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      데이터 송/수신자는 바이트 형태로 데이터를 주고 받을 수 있어야 한다. 이를 위해 객체 데이터를 바이트 데이터 변환하거나,
      반대로 바이트 데이터를 객체 데이터 변환할 수 있어야 한다. 이를 위해 Serializer와 Deserializer를 이용한다.
      */
     @Bean
-    public ConsumerFactory<String, Long> consumerFactory() {
+    public ConsumerFactory<String, CouponCreatedEvent> consumerFactory() {
         Map<String, Object> config = new HashMap<>();
 
-        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "group_1");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, LongDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class); // 읽을 수 없는 value는 예외 대신 null로 전달되어 파티션이 멈추지 않는다
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, CouponCreatedEventDeserializer.class);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords); // 한번의 poll로 가져올 최대 record 수
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false); // offset은 주기적으로 자동 커밋하지 않고 batch 저장이 끝난 이후에 컨테이너가 커밋
 
-        return new DefaultKafkaConsumerFactory<>(config);
+        DefaultKafkaConsumerFactory<String, CouponCreatedEvent> factory = new DefaultKafkaConsumerFactory<>(config);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry)); // kafka.consumer.* 클라이언트 지표 (파티션별 lag, fetch 지연시간)
+
+        return factory;
     }
 
     @Bean // Consumer가 Topic을 통해 메세지를 받을 수 있도록 하는 리스너 구현
-    public ConcurrentKafkaListenerContainerFactory<String, Long> concurrentKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Long> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    public ConcurrentKafkaListenerContainerFactory<String, CouponCreatedEvent> concurrentKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CouponCreatedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency); // 파티션마다 하나의 listener 스레드(KafkaConsumer)가 할당된다
+        factory.setBatchListener(true); // poll 한번으로 가져온 record들을 List로 한번에 전달받아 한번의 insert로 저장
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH); // listener가 예외 없이 반환된 경우에만 batch의 offset을 커밋
+        factory.setCommonErrorHandler(batchErrorHandler()); // 예외로 끝난 batch는 건너뛰지 않고 성공할 때까지 다시 처리
+        factory.setAutoStartup(!warmUpEnabled); // 워밍업을 하는 경우 WarmUpRunner가 끝난 이후에 컨테이너를 시작
+
+        return factory;
+    }
+
+    /**
+     * DB 저장과 재시도 토픽 송신이 모두 실패한 batch를 처리하는 에러 핸들러.
+     * 기본 에러 핸들러는 backoff 없이 10번 재시도한 뒤 로그만 남기고 offset을 커밋하므로 발급된 쿠폰이 유실된다.
+     * 재시도 횟수에 제한 없이 back-off-initial-ms부터 back-off-max-ms까지 간격을 늘려가며 같은 batch를 다시 처리하고 (그 동안 파티션은 멈춘다)
+     * insert가 중복을 무시하므로 일부가 저장된 batch를 다시 처리해도 쿠폰이 중복으로 발급되지 않는다.
+     */
+    private DefaultErrorHandler batchErrorHandler() {
+        ExponentialBackOff backOff = new ExponentialBackOff(backOffInitialMillis, 2.0);
+        backOff.setMaxInterval(backOffMaxMillis);
+        backOff.setMaxElapsedTime(Long.MAX_VALUE); // 재시도를 끝내고 batch를 건너뛰지 않는다
+
+        return new DefaultErrorHandler(backOff);
+    }
+
+    @Bean // 재시도 토픽(@RetryableTopic)은 record 단위 listener만 지원하므로 batch가 아닌 별도의 리스너 팩토리를 사용
+    public ConcurrentKafkaListenerContainerFactory<String, CouponCreatedEvent> retryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CouponCreatedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setObservationEnabled(true); // record 헤더의 trace를 이어서 재시도 처리 span과 지표(spring.kafka.listener)를 남긴다
+        factory.setAutoStartup(!warmUpEnabled);
 
         return factory;
     }
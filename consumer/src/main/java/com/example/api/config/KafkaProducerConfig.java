@@ -0,0 +1,52 @@
+package com.example.api.config;
+
+import com.example.api.domain.CouponCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig { // 저장에 실패한 쿠폰을 재시도 토픽으로 넘기거나 FailedEvent를 다시 coupon_create로 보내기 위한 프로듀서
+
+    private final String bootstrapServers;
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaProducerConfig(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers, MeterRegistry meterRegistry) {
+        this.bootstrapServers = bootstrapServers;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public ProducerFactory<String, CouponCreatedEvent> producerFactory() {
+        Map<String, Object> config = new HashMap<>();
+
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CouponCreatedEventSerializer.class);
+
+        DefaultKafkaProducerFactory<String, CouponCreatedEvent> factory = new DefaultKafkaProducerFactory<>(config);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate() {
+        KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        kafkaTemplate.setObservationEnabled(true); // 현재 span(쿠폰 저장)의 trace를 재시도 record 헤더로 전달
+
+        return kafkaTemplate;
+    }
+
+}
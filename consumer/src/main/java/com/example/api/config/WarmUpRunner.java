@@ -0,0 +1,122 @@
+package com.example.api.config;
+
+import com.example.api.consumer.CouponRetryConsumer;
+import com.example.api.domain.Coupon;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.repository.CouponBatchRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 컨슈머가 coupon_create를 읽기 시작하기 전에 커넥션 풀을 열고, batch insert를 롤백되는 트랜잭션에서 실행해서
+ * MySQL 드라이버/JDBC batch 경로를 JIT 컴파일시키고, 재시도 토픽의 메타데이터를 가져온다.
+ * 워밍업을 켜면 listener 컨테이너는 자동으로 시작하지 않고(KafkaConsumerConfig) 워밍업이 끝난 이후에 여기서 시작한다.
+ */
+@Component
+@ConditionalOnProperty(name = "coupon.warm-up.enabled", havingValue = "true")
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final long WARM_UP_CAMPAIGN_ID = -1L; // api의 워밍업 캠페인 - 롤백되므로 저장되지 않는다
+
+    private final DataSource dataSource;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CouponBatchRepository couponBatchRepository;
+
+    private final KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate;
+
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    private final int batches;
+
+    private final int batchSize;
+
+    private final Logger logger = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    public WarmUpRunner(DataSource dataSource,
+                        TransactionTemplate transactionTemplate,
+                        CouponBatchRepository couponBatchRepository,
+                        KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate,
+                        KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+                        @Value("${coupon.warm-up.batches:50}") int batches,
+                        @Value("${coupon.consumer.max-poll-records:500}") int batchSize) {
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.couponBatchRepository = couponBatchRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+        this.batches = batches;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+
+        openConnectionPool();
+        insertAndRollback();
+        fetchTopicMetadata();
+
+        for (MessageListenerContainer container : kafkaListenerEndpointRegistry.getAllListenerContainers()) {
+            container.start();
+        }
+
+        logger.info("warmed up in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms, started listener containers");
+    }
+
+    private void openConnectionPool() throws SQLException { // listener 스레드들이 동시에 저장해도 커넥션을 새로 맺지 않도록 풀의 최대 크기만큼 연결
+        int size = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 1;
+        List<Connection> connections = new ArrayList<>(size);
+
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private void insertAndRollback() { // 실제 batch와 같은 크기로 저장하고 롤백
+        List<Coupon> coupons = LongStream.range(0, batchSize)
+                .mapToObj(userId -> new Coupon(WARM_UP_CAMPAIGN_ID, userId))
+                .toList();
+
+        for (int i = 0; i < batches; i++) {
+            transactionTemplate.executeWithoutResult(status -> {
+                couponBatchRepository.insertAll(coupons);
+                status.setRollbackOnly();
+            });
+        }
+    }
+
+    private void fetchTopicMetadata() { // 저장에 실패한 batch를 재시도 토픽으로 넘길 때 메타데이터를 기다리지 않도록 미리 가져온다
+        try {
+            kafkaTemplate.partitionsFor(CouponRetryConsumer.TOPIC);
+        } catch (RuntimeException e) {
+            logger.warn("failed to fetch " + CouponRetryConsumer.TOPIC + " metadata during warm-up", e);
+        }
+    }
+
+}
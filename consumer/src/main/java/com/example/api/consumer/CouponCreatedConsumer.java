@@ -1,38 +1,165 @@
 package com.example.api.consumer;
 
+import com.example.api.cache.IssuedCouponCache;
 import com.example.api.domain.Coupon;
-import com.example.api.domain.FailedEvent;
-import com.example.api.repository.CouponRepository;
-import com.example.api.repository.FailedEventRepository;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.metrics.CouponConsumerMetrics;
+import com.example.api.repository.CouponBatchRepository;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Component
 public class CouponCreatedConsumer {
 
-    private final CouponRepository couponRepository;
+    private final CouponBatchRepository couponBatchRepository;
+
+    private final KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate;
+
+    private final CouponConsumerMetrics couponConsumerMetrics;
+
+    private final CouponRecordTracing couponRecordTracing;
+
+    private final IssuedCouponCache issuedCouponCache;
 
-    private final FailedEventRepository failedEventRepository;
+    private final int parallelism;
+
+    private final ExecutorService executorService; // parallelism이 1보다 큰 경우에만 생성되는 batch 분할 저장용 스레드풀
 
     private final Logger logger = LoggerFactory.getLogger(CouponCreatedConsumer.class);
 
-    public CouponCreatedConsumer(CouponRepository couponRepository, FailedEventRepository failedEventRepository) {
-        this.couponRepository = couponRepository;
-        this.failedEventRepository = failedEventRepository;
+    public CouponCreatedConsumer(CouponBatchRepository couponBatchRepository, KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate, CouponConsumerMetrics couponConsumerMetrics, CouponRecordTracing couponRecordTracing, IssuedCouponCache issuedCouponCache, @Value("${coupon.consumer.parallelism:1}") int parallelism) {
+        this.couponBatchRepository = couponBatchRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.couponConsumerMetrics = couponConsumerMetrics;
+        this.couponRecordTracing = couponRecordTracing;
+        this.issuedCouponCache = issuedCouponCache;
+        this.parallelism = parallelism;
+        this.executorService = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+    }
+
+    /**
+     * poll 한번에 가져온 record들을 한번의 JDBC batch insert로 저장한다. (record key는 {campaignId}:{userId})
+     * insert는 (campaign_id, user_id) 중복을 무시하고, offset은 listener가 정상적으로 반환된 이후(= insert가 커밋된 이후)에만 커밋되므로
+     * 리밸런싱이나 장애로 같은 record를 다시 처리해도 쿠폰이 중복으로 발급되지 않는다.
+     */
+    @KafkaListener(topics = "coupon_create", groupId = "group_1", containerFactory = "concurrentKafkaListenerContainerFactory") // 지정하지 않으면 Spring Boot가 만든 record 단위 팩토리(kafkaListenerContainerFactory)가 사용된다
+    public void listener(List<ConsumerRecord<String, CouponCreatedEvent>> records) {
+        couponConsumerMetrics.recordBatch(records.size());
+
+        if (records.stream().anyMatch(record -> record.value() == null)) { // 읽을 수 없는 value(ErrorHandlingDeserializer)는 건너뛰고 나머지만 저장
+            records = skipInvalid(records);
+        }
+
+        if (executorService == null || records.size() < parallelism) {
+            write(records);
+            return;
+        }
+
+        writeInParallel(records);
+    }
+
+    private List<ConsumerRecord<String, CouponCreatedEvent>> skipInvalid(List<ConsumerRecord<String, CouponCreatedEvent>> records) {
+        List<ConsumerRecord<String, CouponCreatedEvent>> valid = new ArrayList<>(records.size());
+
+        for (ConsumerRecord<String, CouponCreatedEvent> record : records) {
+            if (record.value() == null) {
+                logger.error("skipping undecodable coupon_create record " + record.topic() + "-" + record.partition() + "@" + record.offset() + " (key " + record.key() + ")");
+                couponConsumerMetrics.recordInvalid();
+                continue;
+            }
+
+            valid.add(record);
+        }
+
+        return valid;
     }
 
-    @KafkaListener(topics = "coupon_create", groupId = "group_1")
-    public void listener(Long userID) {
+    private void writeInParallel(List<ConsumerRecord<String, CouponCreatedEvent>> records) { // 같은 key(campaignId, userId)는 항상 같은 lane에 들어가므로 key 단위의 순서는 유지된다
+        List<List<ConsumerRecord<String, CouponCreatedEvent>>> lanes = new ArrayList<>();
+
+        for (int i = 0; i < parallelism; i++) {
+            lanes.add(new ArrayList<>());
+        }
+
+        for (ConsumerRecord<String, CouponCreatedEvent> record : records) {
+            lanes.get(Math.floorMod(Objects.hashCode(record.key()), parallelism)).add(record);
+        }
+
+        CompletableFuture.allOf(lanes.stream()
+                        .filter(lane -> !lane.isEmpty())
+                        .map(lane -> CompletableFuture.runAsync(() -> write(lane), executorService))
+                        .toArray(CompletableFuture[]::new))
+                .join(); // 모든 lane의 저장이 끝난 이후에 listener가 반환되어 offset이 커밋된다
+    }
+
+    private void write(List<ConsumerRecord<String, CouponCreatedEvent>> records) { // record마다 api 요청에서 이어진 trace로 저장 span을 남긴다
+        if (records.isEmpty()) {
+            return;
+        }
+
+        List<CouponCreatedEvent> events = records.stream()
+                .map(CouponRecordKey::eventOf)
+                .toList();
+        List<Coupon> coupons = events.stream()
+                .map(event -> new Coupon(event.campaignId(), event.userId()))
+                .toList();
+        List<Span> spans = couponRecordTracing.start(records);
+        long start = System.nanoTime();
+
         try {
-            System.out.println("======= listener on =======" + userID.toString());
-            couponRepository.save(new Coupon(userID));
+            couponBatchRepository.insertAll(coupons);
+            couponConsumerMetrics.recordInsert(start, true);
+            couponConsumerMetrics.recordPersisted(events);
+            issuedCouponCache.addAll(coupons); // 쿠폰 조회 API의 2차 캐시 (커밋된 쿠폰만)
         } catch (Exception e) {
-            logger.error("error occurs during making coupon by" + userID.toString());
-            failedEventRepository.save(new FailedEvent(userID)); // 쿠폰 생성에 실패할 경우 로그와 DB에 데이터를 남기고 이후 배치 프로그램을 통해 쿠폰을 생성해주면 된다.
+            couponConsumerMetrics.recordInsert(start, false);
+            couponRecordTracing.error(spans, e);
+            logger.error("error occurs during making " + coupons.size() + " coupons in batch, forwarding to " + CouponRetryConsumer.TOPIC, e);
+            forwardToRetry(events, spans);
+        } finally {
+            couponRecordTracing.end(spans);
         }
+    }
+
+    private void forwardToRetry(List<CouponCreatedEvent> events, List<Span> spans) { // 실패한 DB에 바로 다시 쓰지 않고 재시도 토픽으로 넘겨서 listener 스레드가 멈추지 않게 한다 (브로커 수신 확인 이후 offset 커밋)
+        List<CompletableFuture<?>> futures = new ArrayList<>(events.size());
+
+        for (int i = 0; i < events.size(); i++) {
+            CouponCreatedEvent event = events.get(i);
 
+            Tracer.SpanInScope scope = couponRecordTracing.inScope(spans.get(i)); // 재시도 record에도 같은 trace를 이어서 전달
+
+            try {
+                futures.add(kafkaTemplate.send(CouponRetryConsumer.TOPIC, CouponRecordKey.of(event.campaignId(), event.userId()), event)); // 발급 시각(issuedAt)을 유지한 채로 넘긴다
+            } finally {
+                scope.close();
+            }
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        couponConsumerMetrics.recordRetryForwarded(events.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
     }
 
 }
@@ -0,0 +1,33 @@
+package com.example.api.consumer;
+
+import com.example.api.domain.CouponCreatedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+public final class CouponRecordKey { // coupon_create record key - {campaignId}:{userId}
+
+    private static final Long DEFAULT_CAMPAIGN_ID = 0L; // record key가 없는 (캠페인 도입 이전의) 메세지는 기본 캠페인으로 처리
+
+    private CouponRecordKey() {
+    }
+
+    public static String of(Long campaignId, Long userId) {
+        return campaignId + ":" + userId;
+    }
+
+    public static CouponCreatedEvent eventOf(ConsumerRecord<String, CouponCreatedEvent> record) { // 이전 형식(value가 userId뿐인) 이벤트는 record key의 campaignId로 채운다
+        CouponCreatedEvent event = record.value();
+
+        return event.isLegacy() ? new CouponCreatedEvent(campaignIdOf(record.key()), event.userId(), event.issuedAt()) : event;
+    }
+
+    public static Long campaignIdOf(String recordKey) { // {campaignId}:{userId} 또는 {campaignId}(이전 형식)
+        if (recordKey == null) {
+            return DEFAULT_CAMPAIGN_ID;
+        }
+
+        int index = recordKey.indexOf(':');
+
+        return Long.valueOf(index < 0 ? recordKey : recordKey.substring(0, index));
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.example.api.consumer;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * batch listener는 spring-kafka의 observation(record 단위)이 적용되지 않으므로
+ * api에서 record 헤더(traceparent)로 전달한 trace를 직접 이어서 record마다 쿠폰 저장 span을 만든다.
+ * 샘플링되지 않은 trace의 span은 기록되지 않는 noop span이므로 batch 크기만큼 만들어도 비용이 작다.
+ */
+@Component
+public class CouponRecordTracing {
+
+    private static final Propagator.Getter<ConsumerRecord<?, ?>> HEADER_GETTER = (record, key) -> {
+        Header header = record.headers().lastHeader(key);
+
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    };
+
+    private final Tracer tracer;
+
+    private final Propagator propagator;
+
+    public CouponRecordTracing(Tracer tracer, ObjectProvider<Propagator> propagator) { // 트레이싱이 꺼진 경우(테스트 등)에는 noop
+        this.tracer = tracer;
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    public List<Span> start(List<? extends ConsumerRecord<?, ?>> records) {
+        return records.stream()
+                .map(record -> propagator.extract(record, HEADER_GETTER)
+                        .name("coupon persist")
+                        .kind(Span.Kind.CONSUMER)
+                        .start())
+                .toList();
+    }
+
+    public Tracer.SpanInScope inScope(Span span) { // span 안에서 송신한 record(재시도 토픽)에 같은 trace가 이어진다
+        return tracer.withSpan(span);
+    }
+
+    public void error(List<Span> spans, Throwable e) {
+        spans.forEach(span -> span.error(e));
+    }
+
+    public void end(List<Span> spans) {
+        spans.forEach(Span::end);
+    }
+
+}
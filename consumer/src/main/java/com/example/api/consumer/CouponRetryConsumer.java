@@ -0,0 +1,71 @@
+package com.example.api.consumer;
+
+import com.example.api.cache.IssuedCouponCache;
+import com.example.api.domain.Coupon;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.domain.FailedEvent;
+import com.example.api.metrics.CouponConsumerMetrics;
+import com.example.api.repository.CouponBatchRepository;
+import com.example.api.repository.FailedEventRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.DltHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * coupon_create batch 저장에 실패한 쿠폰을 한건씩 다시 저장하는 컨슈머.
+ * 실패하면 블로킹 없이 coupon_create_retry-retry-0 ~ 2 토픽으로 넘어가며 1초, 2초, 4초 간격으로 재시도되고,
+ * 모두 실패하면 coupon_create_retry-dlt 토픽으로 넘어가 FailedEvent로 기록된다. (재처리는 FailedEventReplayJob)
+ */
+@Component
+public class CouponRetryConsumer {
+
+    public static final String TOPIC = "coupon_create_retry";
+
+    private final CouponBatchRepository couponBatchRepository;
+
+    private final FailedEventRepository failedEventRepository;
+
+    private final CouponConsumerMetrics couponConsumerMetrics;
+
+    private final IssuedCouponCache issuedCouponCache;
+
+    private final Logger logger = LoggerFactory.getLogger(CouponRetryConsumer.class);
+
+    public CouponRetryConsumer(CouponBatchRepository couponBatchRepository, FailedEventRepository failedEventRepository, CouponConsumerMetrics couponConsumerMetrics, IssuedCouponCache issuedCouponCache) {
+        this.couponBatchRepository = couponBatchRepository;
+        this.failedEventRepository = failedEventRepository;
+        this.couponConsumerMetrics = couponConsumerMetrics;
+        this.issuedCouponCache = issuedCouponCache;
+    }
+
+    @RetryableTopic(
+            attempts = "4",
+            backoff = @Backoff(delay = 1000, multiplier = 2.0),
+            dltTopicSuffix = "-dlt",
+            listenerContainerFactory = "retryKafkaListenerContainerFactory"
+    )
+    @KafkaListener(topics = TOPIC, groupId = "group_1", containerFactory = "retryKafkaListenerContainerFactory")
+    public void listener(ConsumerRecord<String, CouponCreatedEvent> record) {
+        CouponCreatedEvent event = CouponRecordKey.eventOf(record);
+        Coupon coupon = new Coupon(event.campaignId(), event.userId());
+        couponBatchRepository.insert(coupon); // 예외가 발생하면 다음 재시도 토픽으로 넘어간다
+        couponConsumerMetrics.recordPersisted(List.of(event));
+        issuedCouponCache.addAll(List.of(coupon));
+    }
+
+    @DltHandler
+    public void dltListener(ConsumerRecord<String, CouponCreatedEvent> record) { // 재시도가 모두 실패한 쿠폰은 FailedEvent로 남기고 이후 FailedEventReplayJob이 다시 발급한다
+        CouponCreatedEvent event = CouponRecordKey.eventOf(record);
+        logger.error("error occurs during making coupon by" + event.userId() + " after retries");
+        failedEventRepository.save(new FailedEvent(event.campaignId(), event.userId(), event.issuedAt()));
+        couponConsumerMetrics.recordFailedEventSaved();
+    }
+
+}
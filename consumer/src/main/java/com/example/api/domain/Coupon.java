@@ -1,22 +1,35 @@
 package com.example.api.domain;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_coupon_campaign_user", columnNames = {"campaign_id", "user_id"}), // 같은 메세지를 다시 처리해도 캠페인당 유저의 쿠폰은 한개만 저장된다
+        indexes = @Index(name = "idx_coupon_user", columnList = "user_id") // 유저의 쿠폰 목록 조회 (uk_coupon_campaign_user는 campaign_id가 앞에 있어서 사용할 수 없다)
+)
 public class Coupon {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(name = "campaign_id")
+    private Long campaignId;
+
+    @Column(name = "user_id")
     private Long userId;
 
     public Coupon() {
     }
 
-    public Coupon(Long userId) {
+    public Coupon(Long campaignId, Long userId) {
+        this.campaignId = campaignId;
         this.userId = userId;
     }
 
@@ -24,6 +37,10 @@ public class Coupon {
         return id;
     }
 
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
     public Long getUserId() {
         return userId;
     }
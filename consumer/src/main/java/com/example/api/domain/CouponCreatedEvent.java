@@ -0,0 +1,56 @@
+package com.example.api.domain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * coupon_create 토픽의 쿠폰 발급 이벤트 (record value)
+ *
+ * 고정 길이 big-endian 바이너리 : [version 1][campaignId 8][userId 8][issuedAt 8] = 25 bytes (v1)
+ * 필드는 항상 뒤에만 추가되므로 version이 더 높은 이벤트도 v1 부분만 읽어서 처리한다.
+ * 8 bytes인 value는 이벤트 도입 이전에 LongSerializer로 송신된 userId이며 version 0(LEGACY)으로 읽는다. (campaignId는 record key에서 가져온다)
+ */
+public record CouponCreatedEvent(int version, long campaignId, long userId, long issuedAt) {
+
+    public static final byte VERSION = 1;
+
+    public static final int LEGACY = 0;
+
+    public static final int SIZE = 25;
+
+    private static final int LEGACY_SIZE = Long.BYTES;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    public CouponCreatedEvent(long campaignId, long userId, long issuedAt) {
+        this(VERSION, campaignId, userId, issuedAt);
+    }
+
+    public boolean isLegacy() {
+        return version == LEGACY;
+    }
+
+    public byte[] encode() { // 재시도 토픽/재발행은 항상 현재 버전으로 송신
+        byte[] data = new byte[SIZE];
+        data[0] = VERSION;
+        LONG.set(data, 1, campaignId);
+        LONG.set(data, 9, userId);
+        LONG.set(data, 17, issuedAt);
+
+        return data;
+    }
+
+    public static CouponCreatedEvent decode(byte[] data) { // 중간 객체 없이 byte[]에서 바로 읽는다
+        if (data.length == LEGACY_SIZE) {
+            return new CouponCreatedEvent(LEGACY, 0L, (long) LONG.get(data, 0), 0L);
+        }
+
+        if (data.length < SIZE || data[0] < VERSION) {
+            throw new IllegalArgumentException("invalid coupon_create event : " + data.length + " bytes, version " + (data.length == 0 ? "none" : data[0]));
+        }
+
+        return new CouponCreatedEvent(data[0], (long) LONG.get(data, 1), (long) LONG.get(data, 9), (long) LONG.get(data, 17));
+    }
+
+}
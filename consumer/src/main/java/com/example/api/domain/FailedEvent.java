@@ -11,13 +11,39 @@ public class FailedEvent { // 쿠폰 발급이 실패했을 경우 로그를 남
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    private Long campaignId;
+
     private Long userId;
 
+    private Long issuedAt; // api에서 발급된 시각 (epoch millis, 이전 형식의 이벤트는 0)
+
     public FailedEvent() {
     }
 
-    public FailedEvent(Long userId) {
+    public FailedEvent(Long campaignId, Long userId, Long issuedAt) {
+        this.campaignId = campaignId;
         this.userId = userId;
+        this.issuedAt = issuedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public CouponCreatedEvent toCouponCreatedEvent() { // 재발행할 때 원래 발급 시각을 유지
+        return new CouponCreatedEvent(campaignId, userId, issuedAt == null ? 0L : issuedAt);
     }
 
 }
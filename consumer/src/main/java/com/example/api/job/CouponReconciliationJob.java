@@ -0,0 +1,182 @@
+package com.example.api.job;
+
+import com.example.api.consumer.CouponRecordKey;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.metrics.CouponConsumerMetrics;
+import com.example.api.repository.CouponReconciliationRepository;
+import com.example.api.repository.CouponReconciliationRepository.CampaignStock;
+import com.example.api.repository.IssuedUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Redis의 발급 기록(applied_user, coupon_count)과 MySQL에 저장된 쿠폰을 캠페인별로 비교하는 대사(reconciliation) 작업.
+ * applied_user는 apply4가 재고를 획득한 유저만 기록하므로 발급 기록으로 볼 수 있다. apply1~3으로 응모를 받은 캠페인(legacy_apply 표시)은
+ * 발급받지 못한 유저도 남거나 기록이 없으므로 비교하지 않는다.
+ * 1. applied_user를 chunk-size명씩 스캔하고 chunk마다 IN 조회로 저장되지 않은 쿠폰을 찾는다.
+ *    발급 직후 아직 송신/저장 중인 쿠폰(outbox, 컨슈머 지연)을 다시 발행하지 않도록 처음 발견한 유저는 기억만 해두고,
+ *    다음 대사(fixed-delay 이후)에서도 저장되지 않은 유저만 coupon_create로 다시 발행한다. (저장은 (campaign_id, user_id) 기준으로 멱등)
+ * 2. 저장된 쿠폰을 user_id 기준 keyset 페이지로 읽고 페이지마다 applied_user에 없는 유저(초과 발급)를 찾는다.
+ * 3. 발급 카운터와 applied_user의 크기, 저장된 쿠폰 수와 재고를 비교한다.
+ * 초과 발급은 되돌리지 않고 로그와 지표(coupon.reconciliation{result=over_issued})로만 보고한다.
+ * 두 단계 모두 chunk 하나만 메모리에 올리므로 유저 수와 관계없이 메모리 사용량이 일정하다.
+ */
+@Component
+@ConditionalOnProperty(name = "coupon.reconciliation.enabled", havingValue = "true")
+public class CouponReconciliationJob {
+
+    private static final int SAMPLE_SIZE = 10; // 로그에 남길 초과 발급 유저 수
+
+    private final CouponReconciliationRepository couponReconciliationRepository;
+
+    private final IssuedUserRepository issuedUserRepository;
+
+    private final KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate;
+
+    private final CouponConsumerMetrics couponConsumerMetrics;
+
+    private final int chunkSize;
+
+    private final Map<Long, Set<Long>> unsaved = new ConcurrentHashMap<>(); // 캠페인별로 지난 대사에서 저장되지 않은 것을 확인한 유저 - 다음 대사까지 유예
+
+    private final Logger logger = LoggerFactory.getLogger(CouponReconciliationJob.class);
+
+    public CouponReconciliationJob(CouponReconciliationRepository couponReconciliationRepository,
+                                   IssuedUserRepository issuedUserRepository,
+                                   KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate,
+                                   CouponConsumerMetrics couponConsumerMetrics,
+                                   @Value("${coupon.reconciliation.chunk-size:1000}") int chunkSize) {
+        this.couponReconciliationRepository = couponReconciliationRepository;
+        this.issuedUserRepository = issuedUserRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.couponConsumerMetrics = couponConsumerMetrics;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(initialDelayString = "${coupon.reconciliation.fixed-delay:600000}", fixedDelayString = "${coupon.reconciliation.fixed-delay:600000}")
+    public void reconcileAll() {
+        List<CampaignStock> campaigns = couponReconciliationRepository.findActiveCampaigns(LocalDateTime.now());
+        unsaved.keySet().retainAll(campaigns.stream().map(CampaignStock::id).collect(Collectors.toSet())); // 끝난 캠페인의 유예 기록은 버린다
+
+        for (CampaignStock campaign : campaigns) {
+            try {
+                reconcile(campaign);
+            } catch (RuntimeException e) { // 한 캠페인의 실패가 다른 캠페인의 대사를 막지 않도록
+                logger.error("failed to reconcile campaign " + campaign.id(), e);
+            }
+        }
+    }
+
+    public Result reconcile(CampaignStock campaign) {
+        if (!issuedUserRepository.exists(campaign)) { // 발급 기록이 없거나 만료된 캠페인은 저장된 쿠폰 전체가 초과 발급으로 보이므로 비교하지 않는다
+            return Result.EMPTY;
+        }
+
+        if (issuedUserRepository.isLegacy(campaign)) { // applied_user가 발급 기록이 아닌 캠페인
+            unsaved.remove(campaign.id());
+            return Result.EMPTY;
+        }
+
+        Set<Long> previous = unsaved.getOrDefault(campaign.id(), Set.of());
+        Set<Long> pending = new HashSet<>();
+        long missing = reissueMissing(campaign, previous, pending);
+        unsaved.put(campaign.id(), pending);
+        PersistedScan persisted = findOverIssued(campaign);
+        long issuedCount = issuedUserRepository.issuedCount(campaign);
+        long issuedUsers = issuedUserRepository.issuedUserCount(campaign);
+        long overStock = Math.max(persisted.count() - campaign.stock(), 0L);
+
+        couponConsumerMetrics.recordReconciliation(missing, persisted.overIssued() + overStock);
+
+        if (persisted.overIssued() > 0 || overStock > 0 || issuedCount != issuedUsers) {
+            logger.warn("campaign " + campaign.id() + " drifted : " + missing + " missing coupons re-issued, " + pending.size() + " not saved yet, "
+                    + persisted.overIssued() + " persisted coupons not issued in redis (e.g. " + persisted.overIssuedSample() + "), "
+                    + persisted.count() + " persisted / stock " + campaign.stock() + ", "
+                    + "redis counter " + issuedCount + " / issued users " + issuedUsers);
+        } else if (missing > 0 || !pending.isEmpty()) {
+            logger.info("campaign " + campaign.id() + " : re-issued " + missing + " missing coupons, " + pending.size() + " not saved yet");
+        }
+
+        return new Result(missing, pending.size(), persisted.overIssued(), overStock, persisted.count(), issuedCount, issuedUsers);
+    }
+
+    private long reissueMissing(CampaignStock campaign, Set<Long> previous, Set<Long> pending) { // previous : 지난 대사에서도 저장되지 않았던 유저, pending : 이번에 처음 발견한 유저
+        long[] missing = new long[1];
+
+        issuedUserRepository.scan(campaign, chunkSize, userIds -> {
+            Set<Long> persisted = couponReconciliationRepository.findExistingUserIds(campaign.id(), userIds);
+            long issuedAt = System.currentTimeMillis(); // Redis에는 발급 시각이 없으므로 다시 발행한 시각
+
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+
+            for (Long userId : userIds) {
+                if (persisted.contains(userId)) {
+                    continue;
+                }
+
+                if (previous.contains(userId)) {
+                    sends.add(kafkaTemplate.send("coupon_create", CouponRecordKey.of(campaign.id(), userId), new CouponCreatedEvent(campaign.id(), userId, issuedAt)));
+                } else { // 아직 송신/저장 중일 수 있으므로 다음 대사까지 기다린다
+                    pending.add(userId);
+                }
+            }
+
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join(); // chunk 단위로 브로커 기록을 확인하고 다음 chunk로
+            missing[0] += sends.size();
+        });
+
+        return missing[0];
+    }
+
+    private PersistedScan findOverIssued(CampaignStock campaign) {
+        long count = 0L;
+        long overIssued = 0L;
+        List<Long> sample = new ArrayList<>(SAMPLE_SIZE);
+        long lastUserId = Long.MIN_VALUE;
+        List<Long> userIds;
+
+        while (!(userIds = couponReconciliationRepository.findUserIdsAfter(campaign.id(), lastUserId, chunkSize)).isEmpty()) {
+            boolean[] issued = issuedUserRepository.contains(campaign, userIds);
+
+            for (int i = 0; i < issued.length; i++) {
+                if (!issued[i]) {
+                    overIssued++;
+
+                    if (sample.size() < SAMPLE_SIZE) {
+                        sample.add(userIds.get(i));
+                    }
+                }
+            }
+
+            count += userIds.size();
+            lastUserId = userIds.get(userIds.size() - 1);
+        }
+
+        return new PersistedScan(count, overIssued, sample);
+    }
+
+    private record PersistedScan(long count, long overIssued, List<Long> overIssuedSample) {
+    }
+
+    public record Result(long missing, long pending, long overIssued, long overStock, long persisted, long issuedCount, long issuedUsers) {
+
+        static final Result EMPTY = new Result(0L, 0L, 0L, 0L, 0L, 0L, 0L);
+
+    }
+
+}
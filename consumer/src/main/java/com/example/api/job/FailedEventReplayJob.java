@@ -0,0 +1,59 @@
+package com.example.api.job;
+
+import com.example.api.consumer.CouponRecordKey;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.domain.FailedEvent;
+import com.example.api.metrics.CouponConsumerMetrics;
+import com.example.api.repository.FailedEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+@ConditionalOnProperty(name = "coupon.replay.enabled", havingValue = "true")
+public class FailedEventReplayJob { // FailedEvent(DLT까지 실패한 쿠폰)를 주기적으로 coupon_create 토픽에 다시 발행하는 배치 작업
+
+    private final FailedEventRepository failedEventRepository;
+
+    private final KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate;
+
+    private final CouponConsumerMetrics couponConsumerMetrics;
+
+    private final Logger logger = LoggerFactory.getLogger(FailedEventReplayJob.class);
+
+    public FailedEventReplayJob(FailedEventRepository failedEventRepository, KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate, CouponConsumerMetrics couponConsumerMetrics) {
+        this.failedEventRepository = failedEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.couponConsumerMetrics = couponConsumerMetrics;
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.replay.fixed-delay:60000}")
+    public void replay() { // 500건씩 발행하고 브로커가 수신을 확인한 이후에 삭제 (쿠폰 저장은 멱등이므로 중복 발행되어도 안전)
+        long lastId = 0L;
+        long replayed = 0L;
+        List<FailedEvent> events;
+
+        while (!(events = failedEventRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId)).isEmpty()) {
+            CompletableFuture.allOf(events.stream()
+                            .map(event -> kafkaTemplate.send("coupon_create", CouponRecordKey.of(event.getCampaignId(), event.getUserId()), event.toCouponCreatedEvent()))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+
+            failedEventRepository.deleteAllInBatch(events);
+            couponConsumerMetrics.recordFailedEventReplayed(events.size());
+            lastId = events.get(events.size() - 1).getId();
+            replayed += events.size();
+        }
+
+        if (replayed > 0) {
+            logger.info("replayed " + replayed + " failed events to coupon_create");
+        }
+    }
+
+}
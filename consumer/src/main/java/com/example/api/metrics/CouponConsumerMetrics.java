@@ -0,0 +1,107 @@
+package com.example.api.metrics;
+
+import com.example.api.domain.CouponCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿠폰 저장 지표
+ * coupon.consumer.batch.size : poll 한번으로 가져온 record 수
+ * coupon.consumer.insert{result=success|failure} : batch insert 시간
+ * coupon.consumer.retry.forwarded : 저장에 실패해서 재시도 토픽으로 넘긴 쿠폰 수
+ * coupon.failed_event{action=saved|replayed} : DLT까지 실패해서 FailedEvent로 남은 쿠폰 / 다시 발행한 쿠폰 수
+ * coupon.consumer.invalid : 읽을 수 없어서 건너뛴 record 수
+ * coupon.issued_to_persisted : api에서 발급된 시각(이벤트의 issuedAt)부터 저장될 때까지의 시간
+ * coupon.reconciliation{result=reissued|over_issued} : 대사 작업에서 찾은 저장되지 않은 쿠폰(다시 발행) / 초과 발급된 쿠폰 수
+ * lag은 컨슈머 클라이언트 지표(kafka.consumer.fetch.manager.records.lag)로 확인한다.
+ */
+@Component
+public class CouponConsumerMetrics {
+
+    private final DistributionSummary batchSize;
+
+    private final Timer insertSuccess;
+
+    private final Timer insertFailure;
+
+    private final Counter retryForwarded;
+
+    private final Counter failedEventSaved;
+
+    private final Counter failedEventReplayed;
+
+    private final Counter invalid;
+
+    private final Timer issuedToPersisted;
+
+    private final Counter reconciliationReissued;
+
+    private final Counter reconciliationOverIssued;
+
+    public CouponConsumerMetrics(MeterRegistry meterRegistry) {
+        this.batchSize = DistributionSummary.builder("coupon.consumer.batch.size")
+                .baseUnit("records")
+                .register(meterRegistry);
+        this.insertSuccess = insertTimer(meterRegistry, "success");
+        this.insertFailure = insertTimer(meterRegistry, "failure");
+        this.retryForwarded = Counter.builder("coupon.consumer.retry.forwarded").register(meterRegistry);
+        this.failedEventSaved = Counter.builder("coupon.failed_event").tag("action", "saved").register(meterRegistry);
+        this.failedEventReplayed = Counter.builder("coupon.failed_event").tag("action", "replayed").register(meterRegistry);
+        this.invalid = Counter.builder("coupon.consumer.invalid").register(meterRegistry);
+        this.issuedToPersisted = Timer.builder("coupon.issued_to_persisted").register(meterRegistry);
+        this.reconciliationReissued = Counter.builder("coupon.reconciliation").tag("result", "reissued").register(meterRegistry);
+        this.reconciliationOverIssued = Counter.builder("coupon.reconciliation").tag("result", "over_issued").register(meterRegistry);
+    }
+
+    public void recordBatch(int size) {
+        batchSize.record(size);
+    }
+
+    public void recordInsert(long startNanos, boolean success) {
+        (success ? insertSuccess : insertFailure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPersisted(List<CouponCreatedEvent> events) {
+        long now = System.currentTimeMillis();
+
+        for (CouponCreatedEvent event : events) {
+            if (event.issuedAt() > 0) { // 이전 형식의 이벤트는 발급 시각이 없다
+                issuedToPersisted.record(now - event.issuedAt(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public void recordInvalid() {
+        invalid.increment();
+    }
+
+    public void recordRetryForwarded(int count) {
+        retryForwarded.increment(count);
+    }
+
+    public void recordFailedEventSaved() {
+        failedEventSaved.increment();
+    }
+
+    public void recordFailedEventReplayed(int count) {
+        failedEventReplayed.increment(count);
+    }
+
+    public void recordReconciliation(long reissued, long overIssued) {
+        reconciliationReissued.increment(reissued);
+        reconciliationOverIssued.increment(overIssued);
+    }
+
+    private Timer insertTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("coupon.consumer.insert")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+}
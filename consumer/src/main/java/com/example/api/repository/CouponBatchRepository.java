@@ -0,0 +1,35 @@
+package com.example.api.repository;
+
+import com.example.api.domain.Coupon;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public class CouponBatchRepository { // 쿠폰을 JDBC batch로 한번에 저장하는 레포지토리 (IDENTITY 전략은 Hibernate의 insert batching을 끄기 때문에 JPA를 거치지 않는다)
+
+    private static final String INSERT_SQL = "insert into coupon (campaign_id, user_id) values (?, ?) on duplicate key update user_id = user_id"; // 이미 저장된 (campaign_id, user_id)는 무시 (멱등)
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CouponBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void insertAll(List<Coupon> coupons) { // rewriteBatchedStatements=true 설정으로 MySQL 드라이버가 multi-row insert 한번으로 전송
+        jdbcTemplate.batchUpdate(
+                INSERT_SQL,
+                coupons.stream()
+                        .map(coupon -> new Object[]{coupon.getCampaignId(), coupon.getUserId()})
+                        .toList()
+        );
+    }
+
+    public void insert(Coupon coupon) {
+        jdbcTemplate.update(INSERT_SQL, coupon.getCampaignId(), coupon.getUserId());
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 대사(reconciliation)에 필요한 조회만 모은 레포지토리.
+ * 모든 조회는 잠금 없는 일관된 읽기(InnoDB consistent read)이고 페이지마다 별도의 문장으로 실행하므로 오래 유지되는 스냅샷이나 잠금이 없다.
+ * 쿠폰은 uk_coupon_campaign_user (campaign_id, user_id) 인덱스만으로 조회된다.
+ */
+@Repository
+public class CouponReconciliationRepository {
+
+    private static final String ACTIVE_CAMPAIGNS_SQL = "select id, stock, stock_shards, applied_user_store from campaign"
+            + " where (start_at is null or start_at <= ?) and (end_at is null or end_at > ?)";
+
+    private static final String EXISTING_USERS_SQL = "select user_id from coupon where campaign_id = :campaignId and user_id in (:userIds)";
+
+    private static final String USERS_AFTER_SQL = "select user_id from coupon where campaign_id = ? and user_id > ? order by user_id limit ?"; // keyset pagination
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public CouponReconciliationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public List<CampaignStock> findActiveCampaigns(LocalDateTime now) { // 캠페인 테이블은 api 모듈의 Campaign 엔티티 - DB에 없는 기본 캠페인(apply1~3의 테스트용)은 대사하지 않는다
+        return jdbcTemplate.query(
+                ACTIVE_CAMPAIGNS_SQL,
+                (rs, rowNum) -> new CampaignStock(
+                        rs.getLong("id"),
+                        rs.getLong("stock"),
+                        Math.max(rs.getInt("stock_shards"), 1),
+                        "BITMAP".equals(rs.getString("applied_user_store"))
+                ),
+                Timestamp.valueOf(now),
+                Timestamp.valueOf(now)
+        );
+    }
+
+    public Set<Long> findExistingUserIds(long campaignId, List<Long> userIds) {
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                EXISTING_USERS_SQL,
+                new MapSqlParameterSource("campaignId", campaignId).addValue("userIds", userIds),
+                Long.class
+        ));
+    }
+
+    public List<Long> findUserIdsAfter(long campaignId, long afterUserId, int limit) {
+        return jdbcTemplate.queryForList(USERS_AFTER_SQL, Long.class, campaignId, afterUserId, limit);
+    }
+
+    public record CampaignStock(long id, long stock, int stockShards, boolean bitmap) {
+
+        public boolean isStockSharded() {
+            return stockShards > 1;
+        }
+
+    }
+
+}
@@ -3,5 +3,10 @@ package com.example.api.repository;
 import com.example.api.domain.FailedEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface FailedEventRepository extends JpaRepository<FailedEvent, Long> {
+
+    List<FailedEvent> findTop500ByIdGreaterThanOrderByIdAsc(Long id); // id 기준 keyset 페이지네이션
+
 }
@@ -0,0 +1,188 @@
+package com.example.api.repository;
+
+import com.example.api.repository.CouponReconciliationRepository.CampaignStock;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * api가 Redis에 남긴 발급 기록을 읽는 레포지토리 (key 형식은 api 모듈의 CampaignKeys와 같다)
+ * applied_user:{campaignId} (SET) 또는 applied_user_bitmap:{campaignId} (BITMAP) : 쿠폰을 발급받은 유저 (apply4의 발급 스크립트는 재고를 획득한 유저만 기록한다)
+ * 재고가 샤드로 나뉜 캠페인은 applied_user:{campaignId:shard} - 유저는 홈 샤드(userId mod 샤드 수) 하나에만 기록된다
+ * coupon_count:{campaignId} 또는 coupon_count:{campaignId:shard} : 발급된 쿠폰 개수
+ */
+@Repository
+public class IssuedUserRepository {
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public IssuedUserRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public boolean isLegacy(CampaignStock campaign) { // legacy_apply:{campaignId} - apply1~3으로 응모를 받은 캠페인 (applied_user에 발급받지 못한 유저가 있거나 기록이 없다)
+        return Boolean.TRUE.equals(redisTemplate.hasKey("legacy_apply:{" + campaign.id() + "}"));
+    }
+
+    public boolean exists(CampaignStock campaign) {
+        return appliedUserKeys(campaign).stream().anyMatch(key -> Boolean.TRUE.equals(redisTemplate.hasKey(key))); // 샤드 key는 슬롯이 서로 다르므로 하나씩
+    }
+
+    /**
+     * 발급받은 유저를 chunkSize개씩 나누어 전달한다. 한번에 chunk 하나만 메모리에 올린다. (샤드 캠페인은 샤드를 차례로 스캔)
+     * SET은 SSCAN으로 읽으므로 스캔 도중 추가된 유저는 포함되지 않을 수 있고 같은 유저가 두번 전달될 수 있다.
+     */
+    public void scan(CampaignStock campaign, int chunkSize, Consumer<List<Long>> chunkConsumer) {
+        List<Long> chunk = new ArrayList<>(chunkSize);
+
+        for (String key : appliedUserKeys(campaign)) {
+            chunk = campaign.bitmap() ? scanBitmap(key, chunkSize, chunk, chunkConsumer) : scanSet(key, chunkSize, chunk, chunkConsumer);
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    public boolean[] contains(CampaignStock campaign, List<Long> userIds) { // SMISMEMBER 또는 파이프라인으로 SISMEMBER/GETBIT - 왕복 한번
+        boolean[] contains = new boolean[userIds.size()];
+
+        if (!campaign.bitmap() && !campaign.isStockSharded()) {
+            Map<Object, Boolean> members = redisTemplate.opsForSet().isMember(appliedUserKey(campaign, 0L), userIds.stream().map(String::valueOf).toArray());
+
+            for (int i = 0; i < contains.length; i++) {
+                contains[i] = Boolean.TRUE.equals(members.get(String.valueOf(userIds.get(i))));
+            }
+
+            return contains;
+        }
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                byte[] key = appliedUserKey(campaign, userId).getBytes(StandardCharsets.UTF_8);
+
+                if (campaign.bitmap()) {
+                    connection.stringCommands().getBit(key, userId);
+                } else {
+                    connection.setCommands().sIsMember(key, userId.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            return null;
+        });
+
+        for (int i = 0; i < contains.length; i++) {
+            contains[i] = Boolean.TRUE.equals(results.get(i));
+        }
+
+        return contains;
+    }
+
+    public long issuedUserCount(CampaignStock campaign) { // SCARD 또는 BITCOUNT (샤드 캠페인은 샤드의 합)
+        long count = 0L;
+
+        for (String key : appliedUserKeys(campaign)) {
+            Long size = campaign.bitmap()
+                    ? redisTemplate.execute((RedisCallback<Long>) connection -> connection.stringCommands().bitCount(key.getBytes(StandardCharsets.UTF_8)))
+                    : redisTemplate.opsForSet().size(key);
+            count += size == null ? 0L : size;
+        }
+
+        return count;
+    }
+
+    public long issuedCount(CampaignStock campaign) { // 발급 카운터 - 샤드로 나뉜 캠페인은 샤드 카운터의 합
+        if (!campaign.isStockSharded()) {
+            return parse(redisTemplate.opsForValue().get("coupon_count:{" + campaign.id() + "}"));
+        }
+
+        List<String> keys = new ArrayList<>(campaign.stockShards());
+
+        for (int shard = 0; shard < campaign.stockShards(); shard++) {
+            keys.add("coupon_count:{" + campaign.id() + ":" + shard + "}");
+        }
+
+        List<String> counts = redisTemplate.opsForValue().multiGet(keys);
+
+        return counts == null ? 0L : counts.stream().mapToLong(IssuedUserRepository::parse).sum();
+    }
+
+    private List<Long> scanSet(String key, int chunkSize, List<Long> chunk, Consumer<List<Long>> chunkConsumer) {
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(key, ScanOptions.scanOptions().count(chunkSize).build())) {
+            while (cursor.hasNext()) {
+                chunk.add(Long.valueOf(cursor.next()));
+
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+
+        return chunk;
+    }
+
+    private List<Long> scanBitmap(String bitmapKey, int chunkSize, List<Long> chunk, Consumer<List<Long>> chunkConsumer) { // GETRANGE로 chunkSize 바이트(chunkSize x 8명)씩 읽어서 켜진 비트를 userId로 변환
+        byte[] key = bitmapKey.getBytes(StandardCharsets.UTF_8);
+        Long length = redisTemplate.execute((RedisCallback<Long>) connection -> connection.stringCommands().strLen(key));
+
+        for (long start = 0; length != null && start < length; start += chunkSize) {
+            long from = start;
+            byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().getRange(key, from, from + chunkSize - 1));
+
+            for (int i = 0; bytes != null && i < bytes.length; i++) {
+                for (int bit = 0; bit < 8; bit++) {
+                    if ((bytes[i] & (0x80 >>> bit)) != 0) { // SETBIT offset 0은 첫 바이트의 최상위 비트
+                        chunk.add((from + i) * 8 + bit);
+                    }
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+
+        return chunk;
+    }
+
+    private List<String> appliedUserKeys(CampaignStock campaign) {
+        if (!campaign.isStockSharded()) {
+            return List.of(appliedUserKey(campaign, 0L));
+        }
+
+        List<String> keys = new ArrayList<>(campaign.stockShards());
+
+        for (int shard = 0; shard < campaign.stockShards(); shard++) {
+            keys.add(shardKey(campaign, shard));
+        }
+
+        return keys;
+    }
+
+    private String appliedUserKey(CampaignStock campaign, Long userId) { // 유저의 발급 기록이 있는 key (api 모듈의 CampaignKeys.appliedUser(campaign, userId))
+        if (campaign.isStockSharded()) {
+            return shardKey(campaign, (int) Math.floorMod(userId, (long) campaign.stockShards()));
+        }
+
+        return (campaign.bitmap() ? "applied_user_bitmap:{" : "applied_user:{") + campaign.id() + "}";
+    }
+
+    private String shardKey(CampaignStock campaign, int shard) {
+        return (campaign.bitmap() ? "applied_user_bitmap:{" : "applied_user:{") + campaign.id() + ":" + shard + "}";
+    }
+
+    private static long parse(String count) {
+        return count == null ? 0L : Long.parseLong(count);
+    }
+
+}
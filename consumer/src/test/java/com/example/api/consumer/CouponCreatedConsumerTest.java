@@ -0,0 +1,113 @@
+package com.example.api.consumer;
+
+import com.example.api.cache.IssuedCouponCache;
+import com.example.api.domain.Coupon;
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.metrics.CouponConsumerMetrics;
+import com.example.api.repository.CouponBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class CouponCreatedConsumerTest {
+
+    private CouponBatchRepository couponBatchRepository;
+
+    private CouponRecordTracing couponRecordTracing;
+
+    private final List<List<String>> inserts = new CopyOnWriteArrayList<>(); // insertAll 호출마다 저장한 쿠폰 ({campaignId}:{userId})
+
+    private CouponCreatedConsumer consumer;
+
+    @BeforeEach
+    public void setUp() {
+        couponBatchRepository = Mockito.mock(CouponBatchRepository.class);
+        couponRecordTracing = Mockito.mock(CouponRecordTracing.class);
+        BDDMockito.willAnswer(invocation -> {
+            List<Coupon> coupons = invocation.getArgument(0);
+            inserts.add(coupons.stream().map(coupon -> CouponRecordKey.of(coupon.getCampaignId(), coupon.getUserId())).toList());
+            return null;
+        }).given(couponBatchRepository).insertAll(ArgumentMatchers.anyList());
+        BDDMockito.willAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), Mockito.mock(Span.class)))
+                .given(couponRecordTracing).start(ArgumentMatchers.anyList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+
+    @Test
+    public void 읽을수없는record는건너뛰고나머지를한번에저장한다() {
+        consumer = consumer(1);
+
+        consumer.listener(List.of(
+                record(0, "1:10", new CouponCreatedEvent(1L, 10L, 1L)),
+                record(1, "1:11", null), // ErrorHandlingDeserializer가 null로 전달한 value
+                record(2, "2:20", new CouponCreatedEvent(2L, 20L, 1L))
+        ));
+
+        Assertions.assertThat(inserts).containsExactly(List.of("1:10", "2:20"));
+    }
+
+    @Test
+    public void 이전형식의record는key의캠페인으로저장한다() {
+        consumer = consumer(1);
+
+        consumer.listener(List.of(record(0, "3:10", new CouponCreatedEvent(CouponCreatedEvent.LEGACY, 0L, 10L, 0L)))); // value가 userId뿐인 이벤트
+
+        Assertions.assertThat(inserts).containsExactly(List.of("3:10"));
+    }
+
+    @Test
+    public void 병렬저장에서같은key는같은lane에순서대로들어간다() {
+        consumer = consumer(3);
+        List<ConsumerRecord<String, CouponCreatedEvent>> records = new ArrayList<>();
+
+        for (long userId = 0; userId < 30; userId++) {
+            records.add(record(records.size(), CouponRecordKey.of(1L, userId % 10), new CouponCreatedEvent(1L, userId % 10, 1L))); // key마다 세번씩 재전송
+        }
+
+        consumer.listener(records);
+
+        Assertions.assertThat(inserts).hasSize(3); // lane마다 한번씩 (key 1:0 ~ 1:9의 hashCode는 연속이므로 모든 lane에 들어간다)
+        Assertions.assertThat(inserts.stream().mapToInt(List::size).sum()).isEqualTo(30);
+
+        for (long userId = 0; userId < 10; userId++) {
+            String key = CouponRecordKey.of(1L, userId);
+            Assertions.assertThat(inserts).filteredOn(lane -> lane.contains(key)).hasSize(1)
+                    .first().satisfies(lane -> Assertions.assertThat(Collections.frequency(lane, key)).isEqualTo(3));
+        }
+
+        for (List<String> lane : inserts) { // lane 안에서는 batch에 들어온 순서를 유지
+            List<String> expected = records.stream().map(ConsumerRecord::key).filter(lane::contains).toList();
+            Assertions.assertThat(lane).isEqualTo(expected);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CouponCreatedConsumer consumer(int parallelism) {
+        return new CouponCreatedConsumer(couponBatchRepository, Mockito.mock(KafkaTemplate.class), new CouponConsumerMetrics(new SimpleMeterRegistry()),
+                couponRecordTracing, Mockito.mock(IssuedCouponCache.class), parallelism);
+    }
+
+    private ConsumerRecord<String, CouponCreatedEvent> record(long offset, String key, CouponCreatedEvent event) {
+        return new ConsumerRecord<>("coupon_create", 0, offset, key, event);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.example.api.domain;
+
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+class CouponCreatedEventTest {
+
+    @Test
+    public void 인코딩한이벤트를그대로읽는다() {
+        CouponCreatedEvent event = new CouponCreatedEvent(3L, 10L, 1_700_000_000_000L);
+
+        byte[] data = event.encode();
+
+        Assertions.assertThat(data).hasSize(CouponCreatedEvent.SIZE);
+        Assertions.assertThat(CouponCreatedEvent.decode(data)).isEqualTo(event);
+    }
+
+    @Test
+    public void 이전형식의userId는LEGACY로읽는다() {
+        byte[] data = new LongSerializer().serialize("coupon_create", 10L);
+
+        CouponCreatedEvent event = CouponCreatedEvent.decode(data);
+
+        Assertions.assertThat(event.isLegacy()).isTrue();
+        Assertions.assertThat(event.userId()).isEqualTo(10L);
+    }
+
+    @Test
+    public void 새버전의이벤트는알고있는필드까지만읽는다() {
+        byte[] data = ByteBuffer.allocate(CouponCreatedEvent.SIZE + 8)
+                .put((byte) 2)
+                .putLong(3L)
+                .putLong(10L)
+                .putLong(1_700_000_000_000L)
+                .putLong(42L) // v2에서 추가된 필드
+                .array();
+
+        CouponCreatedEvent event = CouponCreatedEvent.decode(data);
+
+        Assertions.assertThat(event.version()).isEqualTo(2);
+        Assertions.assertThat(event.campaignId()).isEqualTo(3L);
+        Assertions.assertThat(event.userId()).isEqualTo(10L);
+    }
+
+    @Test
+    public void 길이가맞지않으면예외() {
+        Assertions.assertThatThrownBy(() -> CouponCreatedEvent.decode(new byte[12]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
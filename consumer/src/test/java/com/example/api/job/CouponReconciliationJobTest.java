@@ -0,0 +1,98 @@
+package com.example.api.job;
+
+import com.example.api.domain.CouponCreatedEvent;
+import com.example.api.metrics.CouponConsumerMetrics;
+import com.example.api.repository.CouponReconciliationRepository;
+import com.example.api.repository.CouponReconciliationRepository.CampaignStock;
+import com.example.api.repository.IssuedUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+class CouponReconciliationJobTest {
+
+    private final CampaignStock campaign = new CampaignStock(1L, 2L, 1, false);
+
+    private CouponReconciliationRepository couponReconciliationRepository;
+
+    private IssuedUserRepository issuedUserRepository;
+
+    private KafkaTemplate<String, CouponCreatedEvent> kafkaTemplate;
+
+    private CouponReconciliationJob job;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        couponReconciliationRepository = Mockito.mock(CouponReconciliationRepository.class);
+        issuedUserRepository = Mockito.mock(IssuedUserRepository.class);
+        kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        job = new CouponReconciliationJob(couponReconciliationRepository, issuedUserRepository, kafkaTemplate, new CouponConsumerMetrics(new SimpleMeterRegistry()), 3);
+
+        BDDMockito.given(kafkaTemplate.send(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .willReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 두번연속저장되지않은쿠폰은다시발행하고초과발급은보고한다() {
+        BDDMockito.given(issuedUserRepository.exists(campaign)).willReturn(true);
+        BDDMockito.willAnswer(invocation -> {
+            invocation.getArgument(2, Consumer.class).accept(List.of(1L, 2L, 3L)); // Redis에서 발급된 유저
+            return null;
+        }).given(issuedUserRepository).scan(ArgumentMatchers.eq(campaign), ArgumentMatchers.eq(3), ArgumentMatchers.any());
+        BDDMockito.given(couponReconciliationRepository.findExistingUserIds(1L, List.of(1L, 2L, 3L))).willReturn(Set.of(1L, 3L)); // 2번 유저의 쿠폰이 유실됨
+        BDDMockito.given(couponReconciliationRepository.findUserIdsAfter(1L, Long.MIN_VALUE, 3)).willReturn(List.of(1L, 3L, 9L));
+        BDDMockito.given(couponReconciliationRepository.findUserIdsAfter(1L, 9L, 3)).willReturn(List.of());
+        BDDMockito.given(issuedUserRepository.contains(campaign, List.of(1L, 3L, 9L))).willReturn(new boolean[]{true, true, false}); // 9번 유저는 Redis에서 발급되지 않음
+        BDDMockito.given(issuedUserRepository.issuedCount(campaign)).willReturn(3L);
+        BDDMockito.given(issuedUserRepository.issuedUserCount(campaign)).willReturn(3L);
+
+        CouponReconciliationJob.Result first = job.reconcile(campaign); // 아직 송신/저장 중일 수 있으므로 기억만 한다
+
+        Assertions.assertThat(first.missing()).isZero();
+        Assertions.assertThat(first.pending()).isEqualTo(1L);
+        BDDMockito.then(kafkaTemplate).shouldHaveNoInteractions();
+
+        CouponReconciliationJob.Result result = job.reconcile(campaign);
+
+        Assertions.assertThat(result.missing()).isEqualTo(1L);
+        Assertions.assertThat(result.pending()).isZero();
+        Assertions.assertThat(result.overIssued()).isEqualTo(1L);
+        Assertions.assertThat(result.overStock()).isEqualTo(1L); // 3개 저장 / 재고 2개
+        BDDMockito.then(kafkaTemplate).should().send(ArgumentMatchers.eq("coupon_create"), ArgumentMatchers.eq("1:2"), ArgumentMatchers.argThat(event -> event.userId() == 2L && event.campaignId() == 1L));
+        BDDMockito.then(kafkaTemplate).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    public void apply1에서3으로응모받은캠페인은비교하지않는다() { // applied_user에 발급받지 못한 유저도 남아있다
+        BDDMockito.given(issuedUserRepository.exists(campaign)).willReturn(true);
+        BDDMockito.given(issuedUserRepository.isLegacy(campaign)).willReturn(true);
+
+        Assertions.assertThat(job.reconcile(campaign).persisted()).isZero();
+
+        BDDMockito.then(couponReconciliationRepository).shouldHaveNoInteractions();
+        BDDMockito.then(kafkaTemplate).shouldHaveNoInteractions();
+    }
+
+    @Test
+    public void 발급기록이없는캠페인은비교하지않는다() { // 만료된 캠페인의 쿠폰 전체를 초과 발급으로 보고하지 않도록
+        BDDMockito.given(issuedUserRepository.exists(campaign)).willReturn(false);
+
+        Assertions.assertThat(job.reconcile(campaign).persisted()).isZero();
+
+        BDDMockito.then(couponReconciliationRepository).shouldHaveNoInteractions();
+        BDDMockito.then(kafkaTemplate).shouldHaveNoInteractions();
+    }
+
+}
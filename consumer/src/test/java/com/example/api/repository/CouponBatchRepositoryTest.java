@@ -0,0 +1,50 @@
+package com.example.api.repository;
+
+import com.example.api.domain.Coupon;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+class CouponBatchRepositoryTest { // insert ... on duplicate key update를 MySQL 모드의 H2로 확인
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CouponBatchRepository couponBatchRepository;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:coupon;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("create table coupon (id bigint auto_increment primary key, campaign_id bigint, user_id bigint, "
+                + "constraint uk_coupon_campaign_user unique (campaign_id, user_id))");
+        couponBatchRepository = new CouponBatchRepository(jdbcTemplate);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("drop table coupon");
+    }
+
+    @Test
+    public void 이미저장된쿠폰은무시하고나머지만저장한다() { // 리밸런싱이나 재시도로 같은 batch를 다시 처리하는 경우
+        couponBatchRepository.insertAll(List.of(new Coupon(1L, 10L), new Coupon(1L, 11L)));
+
+        couponBatchRepository.insertAll(List.of(new Coupon(1L, 10L), new Coupon(1L, 11L), new Coupon(1L, 12L), new Coupon(1L, 12L)));
+        couponBatchRepository.insert(new Coupon(1L, 10L));
+
+        Assertions.assertThat(jdbcTemplate.queryForList("select user_id from coupon where campaign_id = 1 order by user_id", Long.class))
+                .containsExactly(10L, 11L, 12L);
+    }
+
+    @Test
+    public void 같은유저라도캠페인이다르면각각저장한다() {
+        couponBatchRepository.insertAll(List.of(new Coupon(1L, 10L), new Coupon(2L, 10L)));
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from coupon", Long.class)).isEqualTo(2L);
+    }
+
+}
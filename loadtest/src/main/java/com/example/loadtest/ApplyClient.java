@@ -0,0 +1,57 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public class ApplyClient { // api 모듈의 POST /campaigns/{campaignId}/apply 호출
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String apiUrl;
+
+    public ApplyClient(String apiUrl) {
+        this.apiUrl = apiUrl;
+    }
+
+    public CompletableFuture<Response> apply(long campaignId, long userId) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + "/campaigns/" + campaignId + "/apply?userId=" + userId))
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        long start = System.nanoTime();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, e) -> {
+                    long latencyNanos = System.nanoTime() - start;
+
+                    if (e != null) {
+                        return new Response(0, "ERROR", latencyNanos);
+                    }
+
+                    return new Response(response.statusCode(), response.body().replace("\"", ""), latencyNanos);
+                });
+    }
+
+    public record Response(int status, String result, long latencyNanos) { // result : ISSUED / DUPLICATE / SOLD_OUT (200인 경우)
+
+        public boolean isRejected() { // 입장 제한 (429)
+            return status == 429;
+        }
+
+        public String outcome() {
+            if (status == 200) {
+                return result;
+            }
+
+            return status == 0 ? "ERROR" : "HTTP_" + status;
+        }
+
+    }
+
+}
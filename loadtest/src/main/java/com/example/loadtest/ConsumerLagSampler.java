@@ -0,0 +1,95 @@
+package com.example.loadtest;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class ConsumerLagSampler implements AutoCloseable { // group_1 컨슈머 그룹의 coupon_create lag을 주기적으로 기록
+
+    private static final String TOPIC = "coupon_create";
+
+    private static final String GROUP_ID = "group_1";
+
+    private final AdminClient adminClient;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<Sample> samples = new ArrayList<>();
+
+    private final long startNanos = System.nanoTime();
+
+    public ConsumerLagSampler(String bootstrapServers) {
+        Properties properties = new Properties();
+        properties.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        this.adminClient = AdminClient.create(properties);
+    }
+
+    public void start(long intervalMs) {
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                long lag = lag();
+
+                synchronized (samples) {
+                    samples.add(new Sample(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), lag));
+                }
+            } catch (Exception e) {
+                System.err.println("failed to sample consumer lag : " + e.getMessage());
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public long lag() throws Exception { // 파티션별 (최신 offset - 커밋된 offset)의 합
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(GROUP_ID)
+                .partitionsToOffsetAndMetadata()
+                .get();
+        List<TopicPartition> partitions = adminClient.describeTopics(List.of(TOPIC))
+                .allTopicNames()
+                .get()
+                .get(TOPIC)
+                .partitions()
+                .stream()
+                .map(partition -> new TopicPartition(TOPIC, partition.partition()))
+                .toList();
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> latest = adminClient.listOffsets(partitions.stream()
+                        .collect(Collectors.toMap(partition -> partition, partition -> OffsetSpec.latest())))
+                .all()
+                .get();
+
+        long lag = 0;
+
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            lag += latest.get(partition).offset() - (offset == null ? 0 : offset.offset());
+        }
+
+        return lag;
+    }
+
+    public List<Sample> samples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        adminClient.close();
+    }
+
+    public record Sample(long elapsedMs, long lag) {
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.example.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+public class IssueVerifier implements AutoCloseable { // MySQL의 coupon 테이블로 실제 발급 결과를 확인
+
+    private final Connection connection;
+
+    private long lastCouponId = 0;
+
+    public IssueVerifier(String jdbcUrl, String user, String password) throws SQLException {
+        this.connection = DriverManager.getConnection(jdbcUrl, user, password);
+    }
+
+    public long createCampaign(long stock, int stockShards, String appliedUserStore) throws SQLException { // 부하 테스트마다 새로운 캠페인 (이전 실행의 Redis key와 겹치지 않도록)
+        String sql = "insert into campaign (stock, stock_shards, applied_user_store, start_at, end_at) values (?, ?, ?, ?, ?)";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            LocalDateTime now = LocalDateTime.now();
+            statement.setLong(1, stock);
+            statement.setInt(2, stockShards);
+            statement.setString(3, appliedUserStore);
+            statement.setTimestamp(4, Timestamp.valueOf(now.minusMinutes(1)));
+            statement.setTimestamp(5, Timestamp.valueOf(now.plusHours(1)));
+            statement.executeUpdate();
+
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    public void skipExistingCoupons() throws SQLException { // 이전 실행에서 저장된 쿠폰은 polling 대상에서 제외
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) from coupon")) {
+            resultSet.next();
+            lastCouponId = resultSet.getLong(1);
+        }
+    }
+
+    public int pollNewCoupons(long campaignId, BiConsumer<Long, Long> onCoupon) throws SQLException { // (userId, 발견 시각 nanoTime) - 마지막으로 확인한 id 이후만 조회
+        String sql = "select id, user_id from coupon where id > ? and campaign_id = ? order by id limit 1000";
+        int found = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lastCouponId);
+            statement.setLong(2, campaignId);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                long now = System.nanoTime();
+
+                while (resultSet.next()) {
+                    lastCouponId = resultSet.getLong("id");
+                    onCoupon.accept(resultSet.getLong("user_id"), now);
+                    found++;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    public Verification verify(long campaignId, long stock, Set<Long> issuedUserIds) throws SQLException {
+        long rows = 0;
+        long duplicates = 0;
+        Set<Long> persistedUserIds = new HashSet<>();
+
+        try (PreparedStatement statement = connection.prepareStatement("select user_id from coupon where campaign_id = ?")) {
+            statement.setLong(1, campaignId);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+
+                    if (!persistedUserIds.add(resultSet.getLong(1))) {
+                        duplicates++;
+                    }
+                }
+            }
+        }
+
+        long lost = issuedUserIds.stream()
+                .filter(userId -> !persistedUserIds.contains(userId))
+                .count();
+        long unacknowledged = persistedUserIds.stream() // 응답은 ISSUED가 아니었는데 저장된 쿠폰 (타임아웃 등)
+                .filter(userId -> !issuedUserIds.contains(userId))
+                .count();
+
+        return new Verification(stock, issuedUserIds.size(), rows, duplicates, lost, unacknowledged);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    public record Verification(long stock, long issuedResponses, long rows, long duplicates, long lost, long unacknowledged) {
+
+        public long overIssued() {
+            return Math.max(0, rows - stock);
+        }
+
+        public long underIssued() { // 응모자가 재고보다 많았는데 재고를 다 쓰지 못한 경우
+            return Math.max(0, stock - rows);
+        }
+
+        public boolean isCorrect() {
+            return overIssued() == 0 && duplicates == 0 && lost == 0;
+        }
+
+        public Map<String, Long> asMap() {
+            return Map.of(
+                    "stock", stock,
+                    "issuedResponses", issuedResponses,
+                    "rows", rows,
+                    "duplicates", duplicates,
+                    "overIssued", overIssued(),
+                    "underIssued", underIssued(),
+                    "lost", lost,
+                    "unacknowledged", unacknowledged
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * 선착순 쿠폰 이벤트 부하 테스트
+ *
+ * docker-compose로 Redis/MySQL/Kafka를 띄우고 api, consumer 모듈을 실행한 뒤
+ * ./gradlew run --args="--scenario=BURST --users=100000 --stock=100 --duration-ms=1000"
+ *
+ * 실행마다 새로운 캠페인을 만들어 응모하고, 응답 지연시간/처리량과 함께
+ * coupon 테이블을 기준으로 초과 발급, 중복 발급, 유실(ISSUED 응답을 받았는데 저장되지 않은 쿠폰)을 확인한다.
+ */
+public class LoadTestApplication {
+
+    private static final long POLL_INTERVAL_MS = 20; // 종단 간 지연시간은 이 간격의 해상도로 측정된다
+
+    private final LoadTestOptions options;
+
+    private final ApplyClient applyClient;
+
+    private final Semaphore inFlight;
+
+    private final ExecutorService retryExecutor = Executors.newCachedThreadPool();
+
+    private final Histogram applyLatency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+
+    private final Histogram endToEndLatency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(10), 3);
+
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> firstSentAt = new ConcurrentHashMap<>(); // userId -> 첫 응모 요청 시각 (nanoTime)
+
+    private final Set<Long> issuedUserIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong persisted = new AtomicLong();
+
+    private final LongAdder requests = new LongAdder();
+
+    public LoadTestApplication(LoadTestOptions options) {
+        this.options = options;
+        this.applyClient = new ApplyClient(options.apiUrl());
+        this.inFlight = new Semaphore(options.maxInFlight());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        boolean correct = new LoadTestApplication(options).run();
+
+        System.exit(correct ? 0 : 1);
+    }
+
+    public boolean run() throws Exception {
+        try (IssueVerifier verifier = new IssueVerifier(options.jdbcUrl(), options.jdbcUser(), options.jdbcPassword());
+             ConsumerLagSampler lagSampler = new ConsumerLagSampler(options.bootstrapServers())) {
+            long campaignId = verifier.createCampaign(options.stock(), options.stockShards(), options.appliedUserStore());
+            verifier.skipExistingCoupons();
+            System.out.printf("scenario=%s campaignId=%d users=%d stock=%d durationMs=%d%n",
+                    options.scenario(), campaignId, options.users(), options.stock(), options.durationMs());
+
+            ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor();
+            poller.scheduleWithFixedDelay(() -> poll(verifier, campaignId), 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            lagSampler.start(500);
+
+            long start = System.nanoTime();
+            generateLoad(campaignId).join();
+            long loadNanos = System.nanoTime() - start;
+
+            awaitDrain(lagSampler);
+            poller.shutdown();
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+            poll(verifier, campaignId);
+            retryExecutor.shutdownNow();
+
+            IssueVerifier.Verification verification = verifier.verify(campaignId, options.stock(), issuedUserIds);
+            report(loadNanos, verification, lagSampler.samples());
+
+            return verification.isCorrect();
+        }
+    }
+
+    private CompletableFuture<Void> generateLoad(long campaignId) { // 첫 요청을 duration-ms 동안 고르게 분산 (open model - 응답을 기다리지 않고 보낸다)
+        List<CompletableFuture<?>> futures = new ArrayList<>(options.users());
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(options.durationMs()) / Math.max(1, options.users());
+
+        for (int i = 0; i < options.users(); i++) {
+            long delay = start + i * intervalNanos - System.nanoTime();
+
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            long userId = i + 1;
+
+            switch (options.scenario()) {
+                case BURST -> futures.add(apply(campaignId, userId));
+                case RETRY_STORM -> futures.add(applyWithRetry(campaignId, userId, 0));
+                case DUPLICATE_CLICKS -> {
+                    for (int click = 0; click < options.clicks(); click++) {
+                        futures.add(apply(campaignId, userId));
+                    }
+                }
+            }
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private CompletableFuture<Void> applyWithRetry(long campaignId, long userId, int attempt) { // 429를 받으면 retry-delay-ms 이후에 다시 응모
+        return apply(campaignId, userId).thenCompose(response -> {
+            if (!response.isRejected() || attempt >= options.maxRetries()) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(options.retryDelayMs(), TimeUnit.MILLISECONDS, retryExecutor))
+                    .thenCompose(ignored -> applyWithRetry(campaignId, userId, attempt + 1));
+        });
+    }
+
+    private CompletableFuture<ApplyClient.Response> apply(long campaignId, long userId) {
+        inFlight.acquireUninterruptibly();
+        firstSentAt.putIfAbsent(userId, System.nanoTime());
+        requests.increment();
+
+        return applyClient.apply(campaignId, userId)
+                .whenComplete((response, e) -> {
+                    inFlight.release();
+                    applyLatency.recordValue(response.latencyNanos());
+                    outcomes.computeIfAbsent(response.outcome(), key -> new LongAdder()).increment();
+
+                    if ("ISSUED".equals(response.outcome())) {
+                        issuedUserIds.add(userId);
+                    }
+                });
+    }
+
+    private void poll(IssueVerifier verifier, long campaignId) {
+        try {
+            int found;
+
+            do {
+                found = verifier.pollNewCoupons(campaignId, (userId, foundAt) -> {
+                    Long sentAt = firstSentAt.get(userId);
+
+                    if (sentAt != null) {
+                        endToEndLatency.recordValue(Math.max(0, foundAt - sentAt));
+                    }
+                });
+                persisted.addAndGet(found);
+            } while (found > 0);
+        } catch (Exception e) {
+            System.err.println("failed to poll coupons : " + e.getMessage());
+        }
+    }
+
+    private void awaitDrain(ConsumerLagSampler lagSampler) throws InterruptedException { // ISSUED 응답 수만큼 저장되고 lag이 0이 될 때까지 대기
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.drainTimeoutMs());
+
+        while (System.nanoTime() < deadline) {
+            if (persisted.get() >= issuedUserIds.size() && lagOrUnknown(lagSampler) == 0) {
+                return;
+            }
+
+            Thread.sleep(100);
+        }
+
+        System.err.println("timed out waiting for the consumer to drain");
+    }
+
+    private long lagOrUnknown(ConsumerLagSampler lagSampler) {
+        try {
+            return lagSampler.lag();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void report(long loadNanos, IssueVerifier.Verification verification, List<ConsumerLagSampler.Sample> lagSamples) {
+        double seconds = loadNanos / 1_000_000_000.0;
+
+        System.out.println();
+        System.out.printf("requests=%d elapsed=%.2fs throughput=%.0f req/s%n", requests.sum(), seconds, requests.sum() / seconds);
+        System.out.println("outcomes=" + new TreeMap<>(outcomes.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()))));
+        printLatency("apply latency", applyLatency);
+        printLatency("end-to-end latency (apply -> coupon row)", endToEndLatency);
+        System.out.println("consumer lag (elapsedMs=lag) : " + lagSamples.stream()
+                .map(sample -> sample.elapsedMs() + "=" + sample.lag())
+                .toList());
+        System.out.println("verification=" + new TreeMap<>(verification.asMap()));
+        System.out.println(verification.isCorrect() ? "PASS" : "FAIL");
+    }
+
+    private void printLatency(String name, Histogram histogram) {
+        System.out.printf("%s (ms) : count=%d p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1_000_000.0,
+                histogram.getValueAtPercentile(90) / 1_000_000.0,
+                histogram.getValueAtPercentile(99) / 1_000_000.0,
+                histogram.getValueAtPercentile(99.9) / 1_000_000.0,
+                histogram.getMaxValue() / 1_000_000.0);
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.example.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class LoadTestOptions { // --key=value 형식의 실행 인자
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public LoadTestOptions(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("invalid argument : " + arg + " (expected --key=value)");
+            }
+
+            int index = arg.indexOf('=');
+            values.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+    }
+
+    public Scenario scenario() {
+        return Scenario.valueOf(get("scenario", "BURST"));
+    }
+
+    public int users() {
+        return Integer.parseInt(get("users", "100000"));
+    }
+
+    public long stock() {
+        return Long.parseLong(get("stock", "100"));
+    }
+
+    public int stockShards() {
+        return Integer.parseInt(get("stock-shards", "1"));
+    }
+
+    public String appliedUserStore() {
+        return get("applied-user-store", "SET");
+    }
+
+    public long durationMs() { // users명의 첫 요청을 고르게 보내는 시간
+        return Long.parseLong(get("duration-ms", "1000"));
+    }
+
+    public int clicks() {
+        return Integer.parseInt(get("clicks", "3"));
+    }
+
+    public int maxRetries() {
+        return Integer.parseInt(get("max-retries", "5"));
+    }
+
+    public long retryDelayMs() {
+        return Long.parseLong(get("retry-delay-ms", "50"));
+    }
+
+    public int maxInFlight() { // 부하 생성기 자체가 병목이 되지 않도록 동시에 보낼 수 있는 최대 요청 수
+        return Integer.parseInt(get("max-in-flight", "2000"));
+    }
+
+    public String apiUrl() {
+        return get("api", "http://localhost:8080");
+    }
+
+    public String jdbcUrl() {
+        return get("jdbc", "jdbc:mysql://127.0.0.1:3306/coupon_example");
+    }
+
+    public String jdbcUser() {
+        return get("jdbc-user", "root");
+    }
+
+    public String jdbcPassword() {
+        return get("jdbc-password", "1234");
+    }
+
+    public String bootstrapServers() {
+        return get("bootstrap", "localhost:9092");
+    }
+
+    public long drainTimeoutMs() { // 부하가 끝난 이후 컨슈머가 모든 쿠폰을 저장할 때까지 기다리는 최대 시간
+        return Long.parseLong(get("drain-timeout-ms", "60000"));
+    }
+
+    private String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+}
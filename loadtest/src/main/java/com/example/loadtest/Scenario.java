@@ -0,0 +1,9 @@
+package com.example.loadtest;
+
+public enum Scenario { // 선착순 이벤트에서 발생하는 트래픽 패턴
+
+    BURST, // users명이 duration-ms 동안 한번씩 응모
+    RETRY_STORM, // 429(입장 제한)를 받은 유저가 짧은 간격으로 max-retries번까지 다시 응모
+    DUPLICATE_CLICKS // 유저마다 clicks번씩 동시에 응모 (버튼 연타)
+
+}